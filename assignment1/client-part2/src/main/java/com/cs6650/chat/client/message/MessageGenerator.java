@@ -9,7 +9,6 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
-import java.util.UUID;
 
 /**
  * Generates random messages following the assignment specification and places them into a queue
@@ -18,6 +17,8 @@ import java.util.UUID;
 public final class MessageGenerator implements Runnable {
 
     private static final List<String> MESSAGE_TEMPLATES = List.copyOf(buildTemplates());
+    // Time-ordered ids keep the server's and database's message_id index appends sequential
+    private static final MessageIdGenerator MESSAGE_IDS = new MessageIdGenerator();
 
     private final ClientConfig config;
     private final BlockingQueue<ChatMessage> queue;
@@ -56,7 +57,7 @@ public final class MessageGenerator implements Runnable {
         int roomId = random.nextInt(1, 21);
 
         return new ChatMessage(
-                UUID.randomUUID().toString(),
+                MESSAGE_IDS.next(),
                 null, // sender worker will populate clientSendTime before sending
                 userId,
                 username,
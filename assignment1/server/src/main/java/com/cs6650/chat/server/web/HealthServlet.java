@@ -1,6 +1,7 @@
 package com.cs6650.chat.server.web;
 
 import com.cs6650.chat.server.config.ObjectMapperProvider;
+import com.cs6650.chat.server.ws.SessionOutbound;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -27,6 +28,7 @@ public class HealthServlet extends HttpServlet {
         Map<String, Object> body = new HashMap<>();
         body.put("status", "UP");
         body.put("timestamp", Instant.now().toString());
+        body.put("outbound", SessionOutbound.getStats());
 
         OBJECT_MAPPER.writeValue(resp.getWriter(), body);
     }
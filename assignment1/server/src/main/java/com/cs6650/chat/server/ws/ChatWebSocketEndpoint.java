@@ -30,10 +30,11 @@ import org.slf4j.LoggerFactory;
  *   <li>{@link #onOpen(Session, EndpointConfig, String)} – register the session and remember its room.</li>
  *   <li>{@link #onMessage(Session, String)} – parse JSON to {@link ChatMessage}, validate it, and send either
  *       a success echo or a validation-error payload.</li>
- *   <li>{@link #onClose(Session)} – remove the session from the active list.</li>
+ *   <li>{@link #onClose(Session)} – remove the session from the active list and drop unsent replies.</li>
  *   <li>{@link #onError(Session, Throwable)} – log unexpected errors and attempt to notify the client.</li>
  * </ol>
  * Helper methods {@link #sendJsonError(Session, String)} and {@link #closeSilently(Session)} keep error handling tidy.
+ * Replies go through the session's {@link SessionOutbound} queue and never block the calling thread.
  */
 @ServerEndpoint("/chat/{roomId}")
 public class ChatWebSocketEndpoint {
@@ -52,6 +53,7 @@ public class ChatWebSocketEndpoint {
         // Persist the room so future events (close/error) know which room the session belongs to.
         session.getUserProperties().put("roomId", roomId);
         ACTIVE_SESSIONS.put(session.getId(), session);
+        SessionOutbound.register(session);
         LOGGER.info("Session {} joined room {}", session.getId(), roomId);
     }
 
@@ -63,24 +65,22 @@ public class ChatWebSocketEndpoint {
             ChatMessage message = OBJECT_MAPPER.readValue(payload, ChatMessage.class);
             ValidationResult validationResult = VALIDATOR.validate(message);
             if (!validationResult.isValid()) {
-                session.getBasicRemote().sendText(HANDLER.buildValidationErrorResponse(validationResult).toString());
+                sendText(session, HANDLER.buildValidationErrorResponse(validationResult).toString());
                 LOGGER.debug("Validation failed for session {}: {}", session.getId(), validationResult.getErrors());
                 return;
             }
 
-            session.getBasicRemote().sendText(HANDLER.buildSuccessResponse(message, receivedAt).toString());
+            sendText(session, HANDLER.buildSuccessResponse(message, receivedAt).toString());
         } catch (JsonProcessingException ex) {
             LOGGER.warn("Failed to parse message from session {}", session.getId(), ex);
             sendJsonError(session, "Invalid JSON payload.");
-        } catch (IOException ex) {
-            LOGGER.error("Failed to send response to session {}", session.getId(), ex);
-            closeSilently(session);
         }
     }
 
     @OnClose
     public void onClose(Session session) {
         ACTIVE_SESSIONS.remove(session.getId());
+        SessionOutbound.of(session).discard();
         LOGGER.info("Session {} closed", session.getId());
     }
 
@@ -93,13 +93,16 @@ public class ChatWebSocketEndpoint {
     }
 
     private void sendJsonError(Session session, String message) {
-        try {
-            // Minimal JSON to avoid introducing extra dependencies for simple error reporting.
-            session.getBasicRemote().sendText("{\"status\":\"error\",\"errors\":[\"" + message + "\"]}");
-        } catch (IOException ex) {
-            LOGGER.error("Failed to send error response to session {}", session.getId(), ex);
-            closeSilently(session);
-        }
+        // Minimal JSON to avoid introducing extra dependencies for simple error reporting.
+        sendText(session, "{\"status\":\"error\",\"errors\":[\"" + message + "\"]}");
+    }
+
+    /**
+     * Queue a text frame on the session's outbound queue; the write completes asynchronously so a slow
+     * client does not hold the container thread.
+     */
+    private void sendText(Session session, String text) {
+        SessionOutbound.of(session).send(text);
     }
 
     private void closeSilently(Session session) {
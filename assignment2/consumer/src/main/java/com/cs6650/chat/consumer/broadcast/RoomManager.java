@@ -166,7 +166,7 @@ public class RoomManager {
         return String.format(
                 "{\"messageId\":\"%s\",\"roomId\":\"%s\",\"userId\":\"%s\",\"username\":\"%s\"," +
                         "\"message\":\"%s\",\"timestamp\":\"%s\",\"messageType\":\"%s\"," +
-                        "\"serverId\":\"%s\",\"clientIp\":\"%s\"}",
+                        "\"serverId\":\"%s\",\"clientIp\":\"%s\",\"roomSeq\":%d}",
                 message.getMessageId(),
                 message.getRoomId(),
                 message.getUserId(),
@@ -175,7 +175,8 @@ public class RoomManager {
                 message.getTimestamp(),
                 message.getMessageType(),
                 message.getServerId(),
-                message.getClientIp()
+                message.getClientIp(),
+                message.getRoomSeq()
         );
     }
 
@@ -3,6 +3,7 @@ package com.cs6650.chat.consumer.health;
 import com.cs6650.chat.consumer.broadcast.RoomManager;
 import com.cs6650.chat.consumer.queue.MessageConsumer;
 import com.cs6650.chat.consumer.websocket.BroadcastWebSocketHandler;
+import com.cs6650.chat.consumer.websocket.SizeAwareDeflateExtension;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
@@ -48,6 +49,9 @@ public class HealthServer {
             wsContainer.setIdleTimeout(Duration.ofMinutes(10));
             wsContainer.setMaxTextMessageSize(65536);
 
+            // Compression: permessage-deflate that skips small messages (WS_DEFLATE_*)
+            SizeAwareDeflateExtension.install(servletContext);
+
             // Map WebSocket endpoint: /broadcast/{roomId}
             wsContainer.addMapping("/broadcast/*", (req, resp) -> new BroadcastWebSocketHandler(roomManager));
 
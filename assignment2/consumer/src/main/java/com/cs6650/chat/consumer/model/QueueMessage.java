@@ -35,6 +35,10 @@ public class QueueMessage {
     @JsonProperty("clientIp")
     private String clientIp;
 
+    // Per-room sequence number from serverId (1, 2, ...); 0 from servers that do not stamp one
+    @JsonProperty("roomSeq")
+    private long roomSeq;
+
     // Getters and Setters
     public String getMessageId() {
         return messageId;
@@ -108,6 +112,14 @@ public class QueueMessage {
         this.clientIp = clientIp;
     }
 
+    public long getRoomSeq() {
+        return roomSeq;
+    }
+
+    public void setRoomSeq(long roomSeq) {
+        this.roomSeq = roomSeq;
+    }
+
     @Override
     public String toString() {
         return "QueueMessage{" +
@@ -116,6 +128,7 @@ public class QueueMessage {
                 ", userId='" + userId + '\'' +
                 ", username='" + username + '\'' +
                 ", messageType='" + messageType + '\'' +
+                ", roomSeq=" + roomSeq +
                 '}';
     }
 }
@@ -2,8 +2,6 @@ package com.cs6650.chat.consumer.queue;
 
 import com.cs6650.chat.consumer.broadcast.RoomManager;
 import com.cs6650.chat.consumer.model.QueueMessage;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.rabbitmq.client.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,21 +24,24 @@ public class MessageConsumer {
     private static final int RABBITMQ_PORT = Integer.parseInt(System.getenv().getOrDefault("RABBITMQ_PORT", "5672"));
     private static final String RABBITMQ_USERNAME = System.getenv().getOrDefault("RABBITMQ_USERNAME", "guest");
     private static final String RABBITMQ_PASSWORD = System.getenv().getOrDefault("RABBITMQ_PASSWORD", "guest");
-    // One thread per room to guarantee message ordering within each room
-    private static final int CONSUMER_THREADS = Integer.parseInt(System.getenv().getOrDefault("CONSUMER_THREADS", "20"));
+    // Partition queues per room (room.N.k when > 1); must match the server's ROOM_PARTITIONS
+    private static final int ROOM_PARTITIONS = Math.max(1,
+            Integer.parseInt(System.getenv().getOrDefault("ROOM_PARTITIONS", "1")));
+    // One thread per room partition to guarantee message ordering within each partition
+    private static final int CONSUMER_THREADS = Integer.parseInt(
+            System.getenv().getOrDefault("CONSUMER_THREADS", String.valueOf(20 * ROOM_PARTITIONS)));
     private static final int PREFETCH_COUNT = Integer.parseInt(System.getenv().getOrDefault("PREFETCH_COUNT", "10"));
 
     private final Connection connection;
     private final RoomManager roomManager;
-    private final ObjectMapper objectMapper;
+    private final MessageDecoder messageDecoder;
     private final ExecutorService executorService;
     private final List<Channel> channels;
     private final RetryHandler retryHandler;
 
     public MessageConsumer(RoomManager roomManager) throws IOException, TimeoutException {
         this.roomManager = roomManager;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.messageDecoder = new MessageDecoder();
         this.channels = new ArrayList<>();
         this.executorService = Executors.newFixedThreadPool(CONSUMER_THREADS);
         this.retryHandler = new RetryHandler();
@@ -64,34 +65,39 @@ public class MessageConsumer {
 
     /**
      * Start consuming messages from all room queues.
-     * One thread per room to guarantee message ordering.
+     * One channel per room partition, so partitions of a hot room are processed in parallel
+     * while each partition stays in order.
      */
     public void startConsuming() throws IOException {
-        LOGGER.info("Starting {} consumer threads (one per room)", CONSUMER_THREADS);
+        LOGGER.info("Starting {} consumer threads ({} partition(s) per room)", CONSUMER_THREADS, ROOM_PARTITIONS);
 
-        // Create one thread per room (20 rooms = 20 threads)
+        // Create one channel per room partition (20 rooms x ROOM_PARTITIONS)
         for (int roomId = 1; roomId <= 20; roomId++) {
-            Channel channel = connection.createChannel();
-            channel.basicQos(PREFETCH_COUNT);
-            channels.add(channel);
+            for (int partition = 0; partition < ROOM_PARTITIONS; partition++) {
+                Channel channel = connection.createChannel();
+                channel.basicQos(PREFETCH_COUNT);
+                channels.add(channel);
 
-            // Each thread handles exactly one room
-            List<String> assignedRooms = new ArrayList<>();
-            assignedRooms.add(String.valueOf(roomId));
+                // Each thread handles exactly one room partition
+                List<String> assignedRooms = new ArrayList<>();
+                assignedRooms.add(String.valueOf(roomId));
 
-            // Start consumer for this single room
-            startConsumerForRooms(channel, assignedRooms, roomId - 1);
+                // Start consumer for this single room partition
+                startConsumerForRooms(channel, assignedRooms, partition, (roomId - 1) * ROOM_PARTITIONS + partition);
+            }
         }
 
-        LOGGER.info("All {} consumer threads started (one per room for ordering guarantee)", CONSUMER_THREADS);
+        LOGGER.info("All {} room partition consumers started (one per partition for ordering guarantee)",
+                20 * ROOM_PARTITIONS);
     }
 
     /**
-     * Start a consumer for specific rooms on a channel.
+     * Start a consumer for one partition of specific rooms on a channel.
      */
-    private void startConsumerForRooms(Channel channel, List<String> rooms, int threadId) throws IOException {
+    private void startConsumerForRooms(Channel channel, List<String> rooms, int partition, int threadId)
+            throws IOException {
         for (String roomId : rooms) {
-            String queueName = "room." + roomId;
+            String queueName = ROOM_PARTITIONS == 1 ? "room." + roomId : "room." + roomId + "." + partition;
 
             DefaultConsumer consumer = new DefaultConsumer(channel) {
                 @Override
@@ -100,8 +106,7 @@ public class MessageConsumer {
                     String messageId = "unknown";
                     try {
                         // Parse message
-                        String messageJson = new String(body, "UTF-8");
-                        QueueMessage message = objectMapper.readValue(messageJson, QueueMessage.class);
+                        QueueMessage message = messageDecoder.decode(properties, body);
                         messageId = message.getMessageId();
 
                         LOGGER.debug("Thread {} consumed message {} from room {}",
@@ -170,4 +175,8 @@ public class MessageConsumer {
     public RoomManager getRoomManager() {
         return roomManager;
     }
+
+    public MessageDecoder getMessageDecoder() {
+        return messageDecoder;
+    }
 }
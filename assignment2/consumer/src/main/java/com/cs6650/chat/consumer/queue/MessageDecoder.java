@@ -0,0 +1,114 @@
+package com.cs6650.chat.consumer.queue;
+
+import com.cs6650.chat.consumer.model.QueueMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabbitmq.client.AMQP;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes broker deliveries in either wire format, chosen by the AMQP content type:
+ * {@link QueueMessageCodec#CONTENT_TYPE} is the compact binary encoding, anything else is JSON.
+ * Keeps per-format message, byte and decode-time counters so the formats can be compared in production.
+ */
+public class MessageDecoder {
+
+    // Pre-built reader: decodes deliveries straight from the body bytes
+    private final ObjectReader jsonReader;
+
+    private final FormatCounters json = new FormatCounters();
+    private final FormatCounters binary = new FormatCounters();
+
+    public MessageDecoder() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        this.jsonReader = objectMapper.readerFor(QueueMessage.class);
+    }
+
+    public QueueMessage decode(AMQP.BasicProperties properties, byte[] body) throws IOException {
+        long start = System.nanoTime();
+        if (properties != null && QueueMessageCodec.CONTENT_TYPE.equals(properties.getContentType())) {
+            QueueMessage message;
+            try {
+                message = QueueMessageCodec.decode(body);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed binary message: " + e.getMessage(), e);
+            }
+            binary.record(body.length, System.nanoTime() - start);
+            return message;
+        }
+        QueueMessage message = jsonReader.readValue(body);
+        json.record(body.length, System.nanoTime() - start);
+        return message;
+    }
+
+    /**
+     * Get per-format decode statistics.
+     */
+    public DecoderStats getStats() {
+        return new DecoderStats(
+                json.messages.get(), json.bytes.get(), json.nanos.get(),
+                binary.messages.get(), binary.bytes.get(), binary.nanos.get()
+        );
+    }
+
+    private static final class FormatCounters {
+        private final AtomicLong messages = new AtomicLong(0);
+        private final AtomicLong bytes = new AtomicLong(0);
+        private final AtomicLong nanos = new AtomicLong(0);
+
+        void record(int size, long elapsedNanos) {
+            messages.incrementAndGet();
+            bytes.addAndGet(size);
+            nanos.addAndGet(elapsedNanos);
+        }
+    }
+
+    /**
+     * Decoder statistics data class.
+     */
+    public static class DecoderStats {
+        public final long jsonMessages;
+        public final long jsonBytes;
+        public final long jsonDecodeNanos;
+        public final long binaryMessages;
+        public final long binaryBytes;
+        public final long binaryDecodeNanos;
+
+        public DecoderStats(long jsonMessages, long jsonBytes, long jsonDecodeNanos,
+                            long binaryMessages, long binaryBytes, long binaryDecodeNanos) {
+            this.jsonMessages = jsonMessages;
+            this.jsonBytes = jsonBytes;
+            this.jsonDecodeNanos = jsonDecodeNanos;
+            this.binaryMessages = binaryMessages;
+            this.binaryBytes = binaryBytes;
+            this.binaryDecodeNanos = binaryDecodeNanos;
+        }
+
+        public double getJsonAvgBytes() {
+            return jsonMessages == 0 ? 0.0 : (double) jsonBytes / jsonMessages;
+        }
+
+        public double getBinaryAvgBytes() {
+            return binaryMessages == 0 ? 0.0 : (double) binaryBytes / binaryMessages;
+        }
+
+        public double getJsonAvgDecodeMicros() {
+            return jsonMessages == 0 ? 0.0 : jsonDecodeNanos / 1000.0 / jsonMessages;
+        }
+
+        public double getBinaryAvgDecodeMicros() {
+            return binaryMessages == 0 ? 0.0 : binaryDecodeNanos / 1000.0 / binaryMessages;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DecoderStats[json=%d msgs (avg %.1f B, %.2f us), binary=%d msgs (avg %.1f B, %.2f us)]",
+                    jsonMessages, getJsonAvgBytes(), getJsonAvgDecodeMicros(),
+                    binaryMessages, getBinaryAvgBytes(), getBinaryAvgDecodeMicros());
+        }
+    }
+}
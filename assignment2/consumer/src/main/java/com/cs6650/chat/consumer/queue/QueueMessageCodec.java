@@ -0,0 +1,127 @@
+package com.cs6650.chat.consumer.queue;
+
+import com.cs6650.chat.consumer.model.QueueMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Decoder for the compact binary encoding of {@link QueueMessage} produced by the server
+ * (content type {@link #CONTENT_TYPE}).
+ * <p>
+ * Layout (version 2; version 1 is the same without {@code roomSeq}):
+ * <pre>
+ *   byte    version
+ *   byte    flags         bit0 messageId is a UUID, bit1 roomId is numeric, bit2 userId is numeric
+ *   ...     messageId     16 bytes (UUID) or string
+ *   ...     roomId        varint (numeric) or string
+ *   ...     userId        varint (numeric) or string
+ *   varint  timestamp     epoch microseconds + 1, 0 when absent
+ *   byte    messageType   ordinal + 1, 0 when absent
+ *   string  username, message, serverId, clientIp
+ *   varint  roomSeq       per-room sequence number, 0 when not stamped
+ * </pre>
+ * Strings are a varint of (UTF-8 length + 1) followed by the bytes; 0 encodes null.
+ */
+public final class QueueMessageCodec {
+
+    public static final String CONTENT_TYPE = "application/x-chat-message";
+    private static final byte VERSION = 2;
+
+    private static final int FLAG_UUID_ID = 1;
+    private static final int FLAG_NUMERIC_ROOM = 1 << 1;
+    private static final int FLAG_NUMERIC_USER = 1 << 2;
+
+    // Same order as the server's MessageType enum
+    private static final String[] MESSAGE_TYPES = {"TEXT", "JOIN", "LEAVE"};
+
+    private QueueMessageCodec() {
+    }
+
+    public static QueueMessage decode(byte[] body) {
+        Reader in = new Reader(body);
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported message encoding version " + version);
+        }
+        int flags = in.readByte();
+
+        QueueMessage message = new QueueMessage();
+        if ((flags & FLAG_UUID_ID) != 0) {
+            message.setMessageId(new UUID(in.readLong(), in.readLong()).toString());
+        } else {
+            message.setMessageId(in.readString());
+        }
+        message.setRoomId((flags & FLAG_NUMERIC_ROOM) != 0 ? Long.toString(in.readVarLong()) : in.readString());
+        message.setUserId((flags & FLAG_NUMERIC_USER) != 0 ? Long.toString(in.readVarLong()) : in.readString());
+
+        long micros = in.readVarLong() - 1;
+        if (micros >= 0) {
+            message.setTimestamp(Instant.ofEpochSecond(micros / 1_000_000L, (micros % 1_000_000L) * 1_000));
+        }
+        int type = in.readByte();
+        message.setMessageType(type == 0 || type > MESSAGE_TYPES.length ? null : MESSAGE_TYPES[type - 1]);
+
+        message.setUsername(in.readString());
+        message.setMessage(in.readString());
+        message.setServerId(in.readString());
+        message.setClientIp(in.readString());
+        if (version >= 2) {
+            message.setRoomSeq(in.readVarLong());
+        }
+        return message;
+    }
+
+    /**
+     * Sequential reader over an encoded body.
+     */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString() {
+            long length = readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
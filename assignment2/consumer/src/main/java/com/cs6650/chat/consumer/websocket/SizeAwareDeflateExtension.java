@@ -0,0 +1,243 @@
+package com.cs6650.chat.consumer.websocket;
+
+import jakarta.servlet.ServletContext;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.websocket.core.ExtensionConfig;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.WebSocketComponents;
+import org.eclipse.jetty.websocket.core.WebSocketExtensionRegistry;
+import org.eclipse.jetty.websocket.core.internal.PerMessageDeflateExtension;
+import org.eclipse.jetty.websocket.core.server.WebSocketServerComponents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * permessage-deflate (RFC 7692) for the broadcast endpoint that leaves small messages uncompressed
+ * and counts what compression costs and saves.
+ * <p>
+ * A single-frame message shorter than {@code WS_DEFLATE_MIN_BYTES} is sent as a plain frame with RSV1 clear,
+ * which the RFC allows on a connection that negotiated the extension: deflating a short JSON message costs CPU
+ * and rarely makes it smaller. With {@code WS_DEFLATE_CONTEXT_TAKEOVER=false} the server answers with
+ * {@code server_no_context_takeover}, so every message is compressed on its own - a fresh window per message
+ * means a worse ratio but no per-connection history to keep. {@code WS_DEFLATE_ENABLED=false} turns the
+ * extension off; clients then connect without compression.
+ * <p>
+ * Compression time is measured on the sending thread and excludes the socket write. Counters are shared by all
+ * connections.
+ */
+public class SizeAwareDeflateExtension extends PerMessageDeflateExtension {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SizeAwareDeflateExtension.class);
+
+    public static final String NAME = "permessage-deflate";
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getenv().getOrDefault("WS_DEFLATE_ENABLED", "true"));
+    private static final int MIN_BYTES =
+            Integer.parseInt(System.getenv().getOrDefault("WS_DEFLATE_MIN_BYTES", "256"));
+    private static final boolean CONTEXT_TAKEOVER =
+            Boolean.parseBoolean(System.getenv().getOrDefault("WS_DEFLATE_CONTEXT_TAKEOVER", "true"));
+
+    // Time spent below this extension (the socket write), per thread, so it can be taken out of compression time
+    private static final ThreadLocal<long[]> DOWNSTREAM_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    // Statistics
+    private static final AtomicLong sessions = new AtomicLong(0);
+    private static final AtomicLong messagesCompressed = new AtomicLong(0);
+    private static final AtomicLong messagesBypassed = new AtomicLong(0);
+    private static final AtomicLong bytesIn = new AtomicLong(0);
+    private static final AtomicLong bytesOut = new AtomicLong(0);
+    private static final AtomicLong bytesBypassed = new AtomicLong(0);
+    private static final AtomicLong compressNanos = new AtomicLong(0);
+
+    // Compressed frames not yet written; a plain frame must not overtake them
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /**
+     * Replace Jetty's permessage-deflate with this extension, or remove it when compression is disabled.
+     * Call from the WebSocket container configurator, before any connection is upgraded.
+     */
+    public static void install(ServletContext servletContext) {
+        WebSocketComponents components = WebSocketServerComponents.getWebSocketComponents(servletContext);
+        WebSocketExtensionRegistry registry = components.getExtensionRegistry();
+        if (ENABLED) {
+            registry.register(NAME, SizeAwareDeflateExtension.class);
+            LOGGER.info("WebSocket permessage-deflate enabled: minBytes={}, contextTakeover={}",
+                    MIN_BYTES, CONTEXT_TAKEOVER);
+        } else {
+            registry.unregister(NAME);
+            LOGGER.info("WebSocket permessage-deflate disabled");
+        }
+    }
+
+    @Override
+    public void init(ExtensionConfig config, WebSocketComponents components) {
+        if (!CONTEXT_TAKEOVER) {
+            config = new ExtensionConfig(config);
+            config.setParameter("server_no_context_takeover");
+        }
+        super.init(config, components);
+        sessions.incrementAndGet();
+    }
+
+    @Override
+    public void sendFrame(Frame frame, Callback callback, boolean batch) {
+        if (!frame.isDataFrame()) {
+            super.sendFrame(frame, callback, batch);
+            return;
+        }
+        int length = frame.getPayloadLength();
+        if (frame.isFin() && frame.getOpCode() != OpCode.CONTINUATION && length < MIN_BYTES
+                && inFlight.get() == 0) {
+            messagesBypassed.incrementAndGet();
+            bytesBypassed.addAndGet(length);
+            super.nextOutgoingFrame(frame, callback, batch);
+            return;
+        }
+
+        if (frame.getOpCode() != OpCode.CONTINUATION) {
+            messagesCompressed.incrementAndGet();
+        }
+        bytesIn.addAndGet(length);
+        inFlight.incrementAndGet();
+        long[] downstream = DOWNSTREAM_NANOS.get();
+        long downstreamBefore = downstream[0];
+        long start = System.nanoTime();
+        super.sendFrame(frame, new Callback() {
+            @Override
+            public void succeeded() {
+                inFlight.decrementAndGet();
+                callback.succeeded();
+            }
+
+            @Override
+            public void failed(Throwable x) {
+                inFlight.decrementAndGet();
+                callback.failed(x);
+            }
+
+            @Override
+            public InvocationType getInvocationType() {
+                return callback.getInvocationType();
+            }
+        }, batch);
+        compressNanos.addAndGet(System.nanoTime() - start - (downstream[0] - downstreamBefore));
+    }
+
+    /**
+     * Called with each compressed frame on its way to the socket.
+     */
+    @Override
+    protected void nextOutgoingFrame(Frame frame, Callback callback, boolean batch) {
+        if (frame.isDataFrame()) {
+            bytesOut.addAndGet(frame.getPayloadLength());
+        }
+        long start = System.nanoTime();
+        super.nextOutgoingFrame(frame, callback, batch);
+        DOWNSTREAM_NANOS.get()[0] += System.nanoTime() - start;
+    }
+
+    /**
+     * Get compression statistics.
+     */
+    public static DeflateStats getStats() {
+        return new DeflateStats(ENABLED, MIN_BYTES, CONTEXT_TAKEOVER, sessions.get(), messagesCompressed.get(),
+                messagesBypassed.get(), bytesIn.get(), bytesOut.get(), bytesBypassed.get(), compressNanos.get());
+    }
+
+    /**
+     * Compression statistics data class.
+     */
+    public static class DeflateStats {
+        public final boolean enabled;
+        public final int minBytes;
+        public final boolean contextTakeover;
+        public final long sessions;
+        public final long messagesCompressed;
+        public final long messagesBypassed;
+        public final long bytesIn;
+        public final long bytesOut;
+        public final long bytesBypassed;
+        public final long compressNanos;
+
+        public DeflateStats(boolean enabled, int minBytes, boolean contextTakeover, long sessions,
+                            long messagesCompressed, long messagesBypassed, long bytesIn, long bytesOut,
+                            long bytesBypassed, long compressNanos) {
+            this.enabled = enabled;
+            this.minBytes = minBytes;
+            this.contextTakeover = contextTakeover;
+            this.sessions = sessions;
+            this.messagesCompressed = messagesCompressed;
+            this.messagesBypassed = messagesBypassed;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.bytesBypassed = bytesBypassed;
+            this.compressNanos = compressNanos;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getMinBytes() {
+            return minBytes;
+        }
+
+        public boolean isContextTakeover() {
+            return contextTakeover;
+        }
+
+        public long getSessions() {
+            return sessions;
+        }
+
+        public long getMessagesCompressed() {
+            return messagesCompressed;
+        }
+
+        public long getMessagesBypassed() {
+            return messagesBypassed;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        public long getBytesBypassed() {
+            return bytesBypassed;
+        }
+
+        public long getCompressNanos() {
+            return compressNanos;
+        }
+
+        /**
+         * Compressed size over original size for the messages that were compressed (1.0 when none were).
+         */
+        public double getRatio() {
+            return bytesIn > 0 ? (double) bytesOut / bytesIn : 1.0;
+        }
+
+        /**
+         * Average compression time per compressed message in microseconds.
+         */
+        public double getAvgCompressMicros() {
+            return messagesCompressed > 0 ? compressNanos / 1000.0 / messagesCompressed : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DeflateStats[enabled=%b, sessions=%d, compressed=%d, bypassed=%d, "
+                            + "bytesIn=%d, bytesOut=%d, ratio=%.3f, compressMs=%d]",
+                    enabled, sessions, messagesCompressed, messagesBypassed, bytesIn, bytesOut, getRatio(),
+                    compressNanos / 1_000_000);
+        }
+    }
+}
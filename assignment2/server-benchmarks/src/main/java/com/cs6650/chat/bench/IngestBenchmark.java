@@ -0,0 +1,160 @@
+package com.cs6650.chat.bench;
+
+import com.cs6650.chat.server.config.ObjectMapperProvider;
+import com.cs6650.chat.server.handler.EchoMessageHandler;
+import com.cs6650.chat.server.model.ChatMessage;
+import com.cs6650.chat.server.model.QueueMessage;
+import com.cs6650.chat.server.queue.QueueMessageCodec;
+import com.cs6650.chat.server.validation.MessageValidator;
+import com.cs6650.chat.server.validation.MessageValidator.ValidationResult;
+import com.cs6650.chat.server.validation.StreamingMessageParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message stages of the server-v2 ingest path, each measured on its own plus the whole sequence in its
+ * original (data binding, full echo, JSON) and current fast-path (streaming parse, minimal ack, binary) forms.
+ * <p>
+ * Each benchmark processes the next frame of a pool of {@link #POOL_SIZE} client-shaped payloads, so branch
+ * and cache behavior reflect varied input rather than one message. Run with {@code -prof gc} (the default in
+ * {@link BenchmarkRunner}) to get {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+
+    private final ObjectMapper mapper = ObjectMapperProvider.get();
+    private final ObjectWriter queueMessageWriter = mapper.writerFor(QueueMessage.class);
+    private final StreamingMessageParser streamingParser = new StreamingMessageParser(mapper.getFactory());
+    private final MessageValidator validator = new MessageValidator();
+    private final EchoMessageHandler handler = new EchoMessageHandler(mapper);
+
+    private String[] payloads;
+    private ChatMessage[] messages;
+    private QueueMessage[] queueMessages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        payloads = Payloads.generate(POOL_SIZE, 42L);
+        messages = new ChatMessage[POOL_SIZE];
+        queueMessages = new QueueMessage[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            messages[i] = mapper.readValue(payloads[i], ChatMessage.class);
+            if (!validator.validate(messages[i]).isValid()) {
+                throw new IllegalStateException("Generated payload is invalid: " + payloads[i]);
+            }
+            queueMessages[i] = toQueueMessage(messages[i]);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) & (POOL_SIZE - 1);
+        return index;
+    }
+
+    // --- Parse ---
+
+    @Benchmark
+    public ChatMessage parseDataBinding() throws JsonProcessingException {
+        return mapper.readValue(payloads[nextIndex()], ChatMessage.class);
+    }
+
+    @Benchmark
+    public ChatMessage parseStreamingValidated() {
+        return streamingParser.parseValid(payloads[nextIndex()]);
+    }
+
+    // --- Validate ---
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validator.validate(messages[nextIndex()]);
+    }
+
+    // --- Client response ---
+
+    @Benchmark
+    public String buildSuccessResponse() {
+        return handler.buildSuccessResponse(messages[nextIndex()], Instant.now()).toString();
+    }
+
+    @Benchmark
+    public String buildMinimalAck() {
+        return handler.buildMinimalAck(messages[nextIndex()], Instant.now());
+    }
+
+    // --- Broker message ---
+
+    @Benchmark
+    public byte[] encodeQueueMessageJson() throws JsonProcessingException {
+        return queueMessageWriter.writeValueAsBytes(queueMessages[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] encodeQueueMessageBinary() {
+        return QueueMessageCodec.encode(queueMessages[nextIndex()]);
+    }
+
+    // --- Whole sequence, excluding the broker round trip ---
+
+    @Benchmark
+    public int ingestOriginal() throws JsonProcessingException {
+        Instant receivedAt = Instant.now();
+        ChatMessage message = mapper.readValue(payloads[nextIndex()], ChatMessage.class);
+        if (!validator.validate(message).isValid()) {
+            throw new IllegalStateException();
+        }
+        byte[] body = queueMessageWriter.writeValueAsBytes(toQueueMessage(message));
+        String ack = handler.buildSuccessResponse(message, receivedAt).toString();
+        return body.length + ack.length();
+    }
+
+    @Benchmark
+    public int ingestFastPath() {
+        Instant receivedAt = Instant.now();
+        ChatMessage message = streamingParser.parseValid(payloads[nextIndex()]);
+        byte[] body = QueueMessageCodec.encode(toQueueMessage(message));
+        String ack = handler.buildMinimalAck(message, receivedAt);
+        return body.length + ack.length();
+    }
+
+    /**
+     * Same mapping as {@code MessagePublisher.buildQueueMessage}.
+     */
+    private static QueueMessage toQueueMessage(ChatMessage message) {
+        return new QueueMessage(
+                message.getMessageId(),
+                "7",
+                String.valueOf(message.getUserId()),
+                message.getUsername(),
+                message.getMessage(),
+                message.getTimestamp(),
+                message.getMessageType(),
+                "bench-host-1a2b3c4d",
+                "/10.0.1.25:53124"
+        );
+    }
+}
@@ -0,0 +1,71 @@
+package com.cs6650.chat.bench;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Inbound frames shaped like the load client's: same fields, templates, id ranges and message-type mix as
+ * {@code MessageGenerator}, serialized the way {@code SenderWorker} does (ISO-8601 timestamps, roomId included).
+ * A fixed seed keeps runs comparable.
+ */
+final class Payloads {
+
+    private static final List<String> MESSAGE_TEMPLATES = buildTemplates();
+
+    private Payloads() {
+    }
+
+    static String[] generate(int count, long seed) {
+        Random random = new Random(seed);
+        Instant base = Instant.parse("2025-10-09T00:00:00Z");
+        String[] payloads = new String[count];
+        for (int i = 0; i < count; i++) {
+            int userId = 1 + random.nextInt(100_000);
+            String template = MESSAGE_TEMPLATES.get(random.nextInt(MESSAGE_TEMPLATES.size()));
+            // Instant.now() on the client has microsecond precision on Linux
+            Instant timestamp = base.plusSeconds(i).plus(random.nextInt(1_000_000), ChronoUnit.MICROS);
+            Instant clientSendTime = timestamp.plus(random.nextInt(5_000), ChronoUnit.MICROS);
+            payloads[i] = "{\"messageId\":\"" + new UUID(random.nextLong(), random.nextLong())
+                    + "\",\"clientSendTime\":\"" + clientSendTime
+                    + "\",\"userId\":" + userId
+                    + ",\"username\":\"user" + userId
+                    + "\",\"message\":\"" + template
+                    + "\",\"timestamp\":\"" + timestamp
+                    + "\",\"messageType\":\"" + messageType(random)
+                    + "\",\"roomId\":" + (1 + random.nextInt(20)) + "}";
+        }
+        return payloads;
+    }
+
+    private static String messageType(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 5) {
+            return "JOIN";
+        } else if (roll < 10) {
+            return "LEAVE";
+        }
+        return "TEXT";
+    }
+
+    private static List<String> buildTemplates() {
+        List<String> templates = new ArrayList<>(List.of(
+                "Hello everyone!",
+                "Anyone up for a standup meeting?",
+                "Don't forget to commit your changes.",
+                "Deploying the latest build now.",
+                "Lunch time suggestions?",
+                "Reminder: code freeze tonight.",
+                "QA found a blocker issue.",
+                "Let's pair on the WebSocket bug.",
+                "Sprint demo at 3pm.",
+                "Docs are updated in Confluence."));
+        for (int i = templates.size(); i < 50; i++) {
+            templates.add("Auto message template #" + (i - 9));
+        }
+        return templates;
+    }
+}
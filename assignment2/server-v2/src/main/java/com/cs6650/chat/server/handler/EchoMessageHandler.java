@@ -12,9 +12,16 @@ import java.util.Objects;
 /**
  * Builds the JSON responses returned to WebSocket clients.
  * Encapsulating this logic keeps the endpoint lean and easier to test.
+ * Successful publishes are acked with {@link #buildMinimalAck} unless the connection opted into the
+ * full echo of {@link #buildSuccessResponse}.
  */
 public class EchoMessageHandler {
 
+    private static final int ACK_BUFFER_MAX_RETAINED = 1024;
+
+    // Reused per thread for minimal acks; only the final String is allocated
+    private static final ThreadLocal<StringBuilder> ACK_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(160));
+
     private final ObjectMapper objectMapper;
 
     /**
@@ -44,6 +51,95 @@ public class EchoMessageHandler {
         return response;
     }
 
+    /**
+     * Construct the minimal fixed-shape acknowledgement
+     * {@code {"messageId":...,"status":"success","serverReceiveTime":...,"serverSendTime":...}}
+     * with timestamps as epoch microseconds. Written straight into a thread-local buffer instead of a tree.
+     *
+     * @param message    validated inbound message
+     * @param receivedAt timestamp recorded when the server received the message
+     * @return JSON text ready to send
+     */
+    public String buildMinimalAck(ChatMessage message, Instant receivedAt) {
+        Instant sendTime = Instant.now();
+        StringBuilder json = ACK_BUFFER.get();
+        if (json.capacity() > ACK_BUFFER_MAX_RETAINED) {
+            // Do not keep a buffer grown by one unusually long messageId
+            json = new StringBuilder(160);
+            ACK_BUFFER.set(json);
+        }
+        json.setLength(0);
+        json.append('{');
+        if (message.getMessageId() != null) {
+            json.append("\"messageId\":\"");
+            appendEscaped(json, message.getMessageId());
+            json.append("\",");
+        }
+        json.append("\"status\":\"success\",\"serverReceiveTime\":").append(epochMicros(receivedAt))
+                .append(",\"serverSendTime\":").append(epochMicros(sendTime))
+                .append('}');
+        return json.toString();
+    }
+
+    private static long epochMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    // JSON string escaping for quotes, backslashes and control characters.
+    private static void appendEscaped(StringBuilder json, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+    }
+
+    /**
+     * Construct a back-off payload for a message that was not accepted because the server is at capacity.
+     * The client should resend the same message after {@code retryAfterMs}.
+     *
+     * @param message      inbound message that was rejected
+     * @param retryAfterMs suggested delay before retrying
+     * @param reason       which limit was hit ("session" or "node")
+     * @return ObjectNode describing the rejection
+     */
+    public ObjectNode buildRetryResponse(ChatMessage message, long retryAfterMs, String reason) {
+        ObjectNode response = objectMapper.createObjectNode();
+        if (message.getMessageId() != null) {
+            response.put("messageId", message.getMessageId());
+        }
+        response.put("status", "retry");
+        response.put("retryAfterMs", retryAfterMs);
+        response.put("reason", reason);
+        return response;
+    }
+
+    /**
+     * Construct a throttled payload for a message that exceeded a per-user or per-room rate limit.
+     * Unlike {@code retry}, this is the client's own (or its room's) fault; {@code code} mirrors HTTP 429.
+     *
+     * @param message      inbound message that was throttled
+     * @param retryAfterMs time until the limit admits another message
+     * @param scope        which limit was hit ("user" or "room")
+     * @return ObjectNode describing the throttling
+     */
+    public ObjectNode buildThrottledResponse(ChatMessage message, long retryAfterMs, String scope) {
+        ObjectNode response = objectMapper.createObjectNode();
+        if (message.getMessageId() != null) {
+            response.put("messageId", message.getMessageId());
+        }
+        response.put("status", "throttled");
+        response.put("code", 429);
+        response.put("retryAfterMs", retryAfterMs);
+        response.put("scope", scope);
+        return response;
+    }
+
     /**
      * Construct an error payload that returns validation failures to the client.
      *
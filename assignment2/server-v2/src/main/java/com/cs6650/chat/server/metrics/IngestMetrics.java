@@ -0,0 +1,43 @@
+package com.cs6650.chat.server.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stage timers of the ingest path, shared by the endpoint and the publisher.
+ * <ul>
+ *   <li>{@code parse} – JSON to {@code ChatMessage}; on the streaming fast path this includes validation.</li>
+ *   <li>{@code validate} – {@code MessageValidator}, only for frames that fell back to data binding.</li>
+ *   <li>{@code encode} – broker message serialization.</li>
+ *   <li>{@code channel_borrow} – waiting for a channel (pool, stripe or thread-owned).</li>
+ *   <li>{@code publish} – {@code basicPublish}; for batches, the whole batch.</li>
+ *   <li>{@code confirm} – waiting for the broker confirm (sync), or publish-to-ack time (async).</li>
+ *   <li>{@code total} – frame received to ack queued, for published messages.</li>
+ * </ul>
+ */
+public final class IngestMetrics {
+
+    private static final List<StageTimer> TIMERS = new ArrayList<>();
+
+    public static final StageTimer PARSE = register("parse");
+    public static final StageTimer VALIDATE = register("validate");
+    public static final StageTimer ENCODE = register("encode");
+    public static final StageTimer CHANNEL_BORROW = register("channel_borrow");
+    public static final StageTimer PUBLISH = register("publish");
+    public static final StageTimer CONFIRM = register("confirm");
+    public static final StageTimer TOTAL = register("total");
+
+    private IngestMetrics() {
+    }
+
+    private static StageTimer register(String stage) {
+        StageTimer timer = new StageTimer(stage);
+        TIMERS.add(timer);
+        return timer;
+    }
+
+    public static List<StageTimer> getTimers() {
+        return Collections.unmodifiableList(TIMERS);
+    }
+}
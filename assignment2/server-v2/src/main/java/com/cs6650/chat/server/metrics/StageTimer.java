@@ -0,0 +1,120 @@
+package com.cs6650.chat.server.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram for one stage of the ingest path.
+ * <p>
+ * Recording goes into an HdrHistogram {@link Recorder}, which is wait-free for writers, so timing the hot
+ * path costs two {@code nanoTime} calls and a histogram increment. {@link #snapshot()} swaps out the interval
+ * recorded since the previous snapshot and folds it into a cumulative histogram. Values are nanoseconds at two
+ * significant digits (1% resolution); the histograms resize themselves to the largest value seen.
+ */
+public class StageTimer {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String stage;
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Histogram cumulative = new Histogram(SIGNIFICANT_DIGITS);
+    private final LongAdder totalNanos = new LongAdder();
+    private Histogram interval;
+
+    StageTimer(String stage) {
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Record a duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        recorder.recordValue(nanos);
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos} (a {@link System#nanoTime()} value).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Take the interval recorded since the previous call and add it to the cumulative view.
+     */
+    public synchronized StageSnapshot snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        cumulative.add(interval);
+        return new StageSnapshot(stage, Summary.of(interval, -1), Summary.of(cumulative, totalNanos.sum()));
+    }
+
+    /**
+     * Interval and cumulative view of one stage.
+     */
+    public static class StageSnapshot {
+        public final String stage;
+        public final Summary interval;
+        public final Summary cumulative;
+
+        public StageSnapshot(String stage, Summary interval, Summary cumulative) {
+            this.stage = stage;
+            this.interval = interval;
+            this.cumulative = cumulative;
+        }
+    }
+
+    /**
+     * Percentiles of a histogram, in nanoseconds.
+     */
+    public static class Summary {
+        public final long count;
+        public final long sumNanos;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long p999;
+        public final long max;
+
+        public Summary(long count, long sumNanos, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        /**
+         * @param sumNanos exact sum if tracked, or -1 to estimate it from the histogram mean
+         */
+        static Summary of(Histogram histogram, long sumNanos) {
+            long count = histogram.getTotalCount();
+            return new Summary(
+                    count,
+                    sumNanos >= 0 ? sumNanos : Math.round(histogram.getMean() * count),
+                    histogram.getValueAtPercentile(50.0),
+                    histogram.getValueAtPercentile(90.0),
+                    histogram.getValueAtPercentile(99.0),
+                    histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue()
+            );
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Summary[count=%d, p50=%.1fus, p99=%.1fus, max=%.1fus]",
+                    count, p50 / 1000.0, p99 / 1000.0, max / 1000.0);
+        }
+    }
+}
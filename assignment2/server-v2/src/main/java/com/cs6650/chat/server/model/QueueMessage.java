@@ -35,6 +35,10 @@ public class QueueMessage {
     @JsonProperty("clientIp")
     private String clientIp;
 
+    // Position in the room's stream from serverId, starting at 1; 0 when not stamped
+    @JsonProperty("roomSeq")
+    private long roomSeq;
+
     public QueueMessage() {
     }
 
@@ -124,4 +128,12 @@ public class QueueMessage {
     public void setClientIp(String clientIp) {
         this.clientIp = clientIp;
     }
+
+    public long getRoomSeq() {
+        return roomSeq;
+    }
+
+    public void setRoomSeq(long roomSeq) {
+        this.roomSeq = roomSeq;
+    }
 }
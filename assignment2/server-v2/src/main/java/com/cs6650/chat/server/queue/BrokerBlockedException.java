@@ -0,0 +1,14 @@
+package com.cs6650.chat.server.queue;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of handing out a channel while the broker blocks the room's connection
+ * (RabbitMQ memory or disk alarm). Nothing was published; the message can be spooled or retried later.
+ */
+public class BrokerBlockedException extends IOException {
+
+    public BrokerBlockedException(String message) {
+        super(message);
+    }
+}
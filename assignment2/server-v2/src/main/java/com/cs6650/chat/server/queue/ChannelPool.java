@@ -7,29 +7,88 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Thread-safe channel pool for RabbitMQ connections.
  * Manages a pool of channels to avoid creating new channels for each message.
+ * <p>
+ * Channels are spread over {@code RABBITMQ_CONNECTIONS} connections so publishes do not all share one
+ * socket and I/O thread. Each room is pinned to one connection, which keeps per-room ordering.
+ * <p>
+ * The publish hot path goes through {@link #acquireChannel(String)} / {@link #releaseChannel(String, Channel)},
+ * whose behaviour depends on {@code CHANNEL_ACCESS_MODE}:
+ * <ul>
+ *   <li>{@code pool} – borrow from the room's connection pool (bounded wait).</li>
+ *   <li>{@code thread} – each publishing thread owns a channel per connection, so there is no borrow/return.
+ *       Once {@code CHANNEL_AFFINE_MAX} channels exist, further threads fall back to borrowing.
+ *       Not used with {@code EXECUTION_MODE=virtual}: every lane task runs on a new virtual thread, so each
+ *       publish would open a channel that is never reused or closed; the pool borrows instead.</li>
+ *   <li>{@code stripe} – rooms are hashed onto a fixed set of channels guarded by uncontended locks.</li>
+ * </ul>
+ * <p>
+ * While RabbitMQ blocks a connection (memory or disk alarm), publishing on it would hang until the confirm
+ * timeout. The pool tracks the {@code connection.blocked} / {@code connection.unblocked} notifications and
+ * refuses channels for a blocked connection with {@link BrokerBlockedException}, so callers can spool or shed
+ * the message at once.
  */
 public class ChannelPool {
     private static final Logger LOGGER = LoggerFactory.getLogger(ChannelPool.class);
 
-    private final BlockingQueue<Channel> pool;
-    private final Connection connection;
+    private final ConnectionSlot[] slots;
     private final int poolSize;
+    private final int stripesPerSlot;
+    private final AtomicInteger roundRobin = new AtomicInteger(0);
+    // Publisher confirm tracker and owning connection per channel
+    private final Map<Channel, ChannelState> channelStates = new ConcurrentHashMap<>();
+
+    // Thread-affine channels (thread mode), one per connection slot
+    private final ThreadLocal<Channel[]> affineChannels = new ThreadLocal<>();
+    private final Queue<Channel> allAffineChannels = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger affineCount = new AtomicInteger(0);
+
+    // Statistics
+    private final AtomicLong acquisitions = new AtomicLong(0);
+    private final AtomicLong affineAcquisitions = new AtomicLong(0);
+    private final AtomicLong fallbackBorrows = new AtomicLong(0);
+    private final AtomicLong borrowTimeouts = new AtomicLong(0);
+    private final AtomicLong waitNanosTotal = new AtomicLong(0);
+    private final AtomicLong waitNanosMax = new AtomicLong(0);
+    private final AtomicInteger inUse = new AtomicInteger(0);
+    private final AtomicLong blockedRejections = new AtomicLong(0);
 
     private static final String RABBITMQ_HOST = System.getenv().getOrDefault("RABBITMQ_HOST", "localhost");
     private static final int RABBITMQ_PORT = Integer.parseInt(System.getenv().getOrDefault("RABBITMQ_PORT", "5672"));
     private static final String RABBITMQ_USERNAME = System.getenv().getOrDefault("RABBITMQ_USERNAME", "guest");
     private static final String RABBITMQ_PASSWORD = System.getenv().getOrDefault("RABBITMQ_PASSWORD", "guest");
+    private static final int RABBITMQ_CONNECTIONS = Integer.parseInt(
+            System.getenv().getOrDefault("RABBITMQ_CONNECTIONS", "1"));
+
+    private static final String ACCESS_MODE = resolveAccessMode(
+            System.getenv().getOrDefault("CHANNEL_ACCESS_MODE", "pool").toLowerCase(),
+            System.getenv().getOrDefault("EXECUTION_MODE", "container").toLowerCase());
+    private static final long BORROW_TIMEOUT_MS = Long.parseLong(
+            System.getenv().getOrDefault("CHANNEL_BORROW_TIMEOUT_MS", "5000"));
+    private static final int AFFINE_MAX = Integer.parseInt(
+            System.getenv().getOrDefault("CHANNEL_AFFINE_MAX", "256"));
 
     public ChannelPool(int poolSize) throws IOException, TimeoutException {
         this.poolSize = poolSize;
-        this.pool = new ArrayBlockingQueue<>(poolSize);
+        int connectionCount = Math.max(1, RABBITMQ_CONNECTIONS);
+        int channelsPerSlot = Math.max(1, (poolSize + connectionCount - 1) / connectionCount);
+        this.stripesPerSlot = "stripe".equals(ACCESS_MODE) ? channelsPerSlot : 0;
 
         // Create connection
         ConnectionFactory factory = new ConnectionFactory();
@@ -44,38 +103,268 @@ public class ChannelPool {
         factory.setRequestedHeartbeat(60);
         factory.setConnectionTimeout(30000);
 
-        this.connection = factory.newConnection();
-        LOGGER.info("Connected to RabbitMQ at {}:{}", RABBITMQ_HOST, RABBITMQ_PORT);
+        this.slots = new ConnectionSlot[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            Connection connection = factory.newConnection("chat-server-publisher-" + i);
+            ConnectionSlot slot = new ConnectionSlot(i, connection, channelsPerSlot, stripesPerSlot);
+            slots[i] = slot;
+            connection.addBlockedListener(slot::block, slot::unblock);
+            // A lost connection no longer holds the alarm; the broker blocks the recovered one again if needed
+            connection.addShutdownListener(cause -> slot.unblock());
+
+            // Pre-create channels
+            for (int c = 0; c < channelsPerSlot; c++) {
+                slot.pool.offer(openChannel(slot));
+            }
+            for (int s = 0; s < stripesPerSlot; s++) {
+                slot.stripes[s] = new Stripe(openChannel(slot));
+            }
+        }
+        LOGGER.info("Connected to RabbitMQ at {}:{} with {} connection(s)", RABBITMQ_HOST, RABBITMQ_PORT, connectionCount);
+        LOGGER.info("Channel pool initialized with {} channels per connection (access mode: {})",
+                channelsPerSlot, ACCESS_MODE);
+    }
 
-        // Pre-create channels
-        for (int i = 0; i < poolSize; i++) {
-            Channel channel = connection.createChannel();
-            // Enable publisher confirms for reliability
-            channel.confirmSelect();
-            pool.offer(channel);
+    /**
+     * Thread-owned channels only pay off on long-lived threads; with virtual-thread execution every publish runs
+     * on a fresh thread, so {@code thread} mode is replaced by {@code pool}.
+     */
+    private static String resolveAccessMode(String accessMode, String executionMode) {
+        if ("thread".equals(accessMode) && "virtual".equals(executionMode)) {
+            LOGGER.warn("CHANNEL_ACCESS_MODE=thread does not work with EXECUTION_MODE=virtual "
+                    + "(each virtual thread would open its own channel); using pool");
+            return "pool";
         }
-        LOGGER.info("Channel pool initialized with {} channels", poolSize);
+        return accessMode;
+    }
+
+    /**
+     * Create a channel with publisher confirms enabled and a confirm tracker attached.
+     */
+    private Channel openChannel(ConnectionSlot slot) throws IOException {
+        Channel channel = slot.connection.createChannel();
+        // Enable publisher confirms for reliability
+        channel.confirmSelect();
+
+        ConfirmTracker tracker = new ConfirmTracker();
+        channel.addConfirmListener(tracker);
+        // Outstanding confirms can never arrive once the channel is gone
+        channel.addShutdownListener(tracker::failAll);
+        channelStates.put(channel, new ChannelState(tracker, slot));
+        return channel;
+    }
+
+    /**
+     * Get the confirm tracker for a channel created by this pool.
+     */
+    public ConfirmTracker getConfirmTracker(Channel channel) {
+        ChannelState state = channelStates.get(channel);
+        return state != null ? state.tracker : null;
+    }
+
+    /**
+     * Record messages published on a channel, for per-connection throughput reporting.
+     */
+    public void recordPublish(Channel channel, int messages, long bytes) {
+        ChannelState state = channelStates.get(channel);
+        if (state != null) {
+            state.slot.messagesPublished.addAndGet(messages);
+            state.slot.bytesPublished.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Acquire a channel for publishing to a room using the configured access mode.
+     * Every successful call must be paired with {@link #releaseChannel(String, Channel)}.
+     *
+     * @throws BrokerBlockedException if the broker is blocking the room's connection
+     */
+    public Channel acquireChannel(String roomId) throws IOException, InterruptedException, TimeoutException {
+        int index = roomIndex(roomId);
+        ConnectionSlot slot = slots[index % slots.length];
+        checkNotBlocked(slot);
+        switch (ACCESS_MODE) {
+            case "thread":
+                Channel owned = acquireAffineChannel(slot);
+                if (owned != null) {
+                    return owned;
+                }
+                fallbackBorrows.incrementAndGet();
+                return borrowFrom(slot);
+            case "stripe":
+                return acquireStripe(slot.stripes[index / slots.length], roomId);
+            default:
+                return borrowFrom(slot);
+        }
+    }
+
+    /**
+     * Release a channel obtained from {@link #acquireChannel(String)}.
+     */
+    public void releaseChannel(String roomId, Channel channel) {
+        if (channel == null) {
+            return;
+        }
+        int index = roomIndex(roomId);
+        ConnectionSlot slot = slots[index % slots.length];
+        Channel[] owned = affineChannels.get();
+        if (owned != null && owned[slot.index] == channel) {
+            inUse.decrementAndGet();
+            return;
+        }
+        if (stripesPerSlot > 0) {
+            Stripe stripe = slot.stripes[index / slots.length];
+            if (stripe.lock.isHeldByCurrentThread()) {
+                inUse.decrementAndGet();
+                stripe.lock.unlock();
+                return;
+            }
+        }
+        returnChannel(channel);
+    }
+
+    /**
+     * Stable position of a room across connections and stripes: {@code index % connections}
+     * selects the connection and {@code index / connections} the stripe within it.
+     */
+    private int roomIndex(String roomId) {
+        int hash = roomId == null ? 0 : roomId.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, slots.length * Math.max(1, stripesPerSlot));
+    }
+
+    /**
+     * Get (or lazily open) the calling thread's own channel; null once the affinity cap is reached.
+     */
+    private Channel acquireAffineChannel(ConnectionSlot slot) {
+        Channel[] owned = affineChannels.get();
+        if (owned == null) {
+            owned = new Channel[slots.length];
+            affineChannels.set(owned);
+        }
+        Channel channel = owned[slot.index];
+        if (channel != null && channel.isOpen()) {
+            affineAcquisitions.incrementAndGet();
+            acquisitions.incrementAndGet();
+            inUse.incrementAndGet();
+            return channel;
+        }
+        if (channel == null && affineCount.incrementAndGet() > AFFINE_MAX) {
+            affineCount.decrementAndGet();
+            return null;
+        }
+        try {
+            if (channel != null) {
+                allAffineChannels.remove(channel);
+                channelStates.remove(channel);
+                LOGGER.warn("Thread-affine channel was closed, creating new one");
+            }
+            channel = openChannel(slot);
+        } catch (IOException e) {
+            LOGGER.error("Failed to create thread-affine channel", e);
+            owned[slot.index] = null;
+            affineCount.decrementAndGet();
+            return null;
+        }
+        owned[slot.index] = channel;
+        allAffineChannels.add(channel);
+        affineAcquisitions.incrementAndGet();
+        acquisitions.incrementAndGet();
+        inUse.incrementAndGet();
+        return channel;
+    }
+
+    /**
+     * Lock the room's stripe and return its channel, waiting at most the borrow timeout.
+     */
+    private Channel acquireStripe(Stripe stripe, String roomId) throws InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        if (!stripe.lock.tryLock()) {
+            if (!stripe.lock.tryLock(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.incrementAndGet();
+                throw new TimeoutException("Timed out waiting for channel stripe of room " + roomId);
+            }
+        }
+        recordWait(System.nanoTime() - start);
+        if (!stripe.channel.isOpen()) {
+            LOGGER.warn("Stripe channel was closed, creating new one");
+            ChannelState state = channelStates.remove(stripe.channel);
+            try {
+                stripe.channel = openChannel(state != null ? state.slot : slots[0]);
+            } catch (IOException e) {
+                stripe.lock.unlock();
+                LOGGER.error("Failed to create replacement channel", e);
+                throw new RuntimeException("Failed to create replacement channel", e);
+            }
+        }
+        inUse.incrementAndGet();
+        return stripe.channel;
     }
 
     /**
      * Borrow a channel from the pool.
-     * Blocks if no channels are available.
+     * Connections are used round robin; blocks until a channel is available or the borrow timeout elapses.
+     */
+    public Channel borrowChannel() throws IOException, InterruptedException, TimeoutException {
+        ConnectionSlot slot = slots[Math.floorMod(roundRobin.getAndIncrement(), slots.length)];
+        checkNotBlocked(slot);
+        return borrowFrom(slot);
+    }
+
+    /**
+     * Borrow a pooled channel on the connection a room is pinned to.
+     */
+    public Channel borrowChannel(String roomId) throws IOException, InterruptedException, TimeoutException {
+        ConnectionSlot slot = slots[roomIndex(roomId) % slots.length];
+        checkNotBlocked(slot);
+        return borrowFrom(slot);
+    }
+
+    /**
+     * Whether the broker is currently blocking publishes on the connection a room is pinned to.
+     */
+    public boolean isBlocked(String roomId) {
+        return slots[roomIndex(roomId) % slots.length].blockedReason != null;
+    }
+
+    private void checkNotBlocked(ConnectionSlot slot) throws BrokerBlockedException {
+        String reason = slot.blockedReason;
+        if (reason != null) {
+            blockedRejections.incrementAndGet();
+            throw new BrokerBlockedException("Broker is blocking connection " + slot.index + ": " + reason);
+        }
+    }
+
+    /**
+     * Open a plain channel (no confirms, not pooled) on the connection a room is pinned to, for consuming.
+     * The caller owns and closes it.
      */
-    public Channel borrowChannel() throws InterruptedException {
-        Channel channel = pool.take();
+    public Channel openConsumerChannel(String roomId) throws IOException {
+        return slots[roomIndex(roomId) % slots.length].connection.createChannel();
+    }
+
+    private Channel borrowFrom(ConnectionSlot slot) throws InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        Channel channel = slot.pool.poll(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (channel == null) {
+            borrowTimeouts.incrementAndGet();
+            throw new TimeoutException("Timed out after " + BORROW_TIMEOUT_MS + "ms waiting for a pooled channel");
+        }
+        recordWait(System.nanoTime() - start);
 
         // Verify channel is still open
         if (!channel.isOpen()) {
             LOGGER.warn("Borrowed channel was closed, creating new one");
+            channelStates.remove(channel);
             try {
-                channel = connection.createChannel();
-                channel.confirmSelect();
+                channel = openChannel(slot);
             } catch (IOException e) {
                 LOGGER.error("Failed to create replacement channel", e);
                 throw new RuntimeException("Failed to create replacement channel", e);
             }
         }
 
+        inUse.incrementAndGet();
         return channel;
     }
 
@@ -83,45 +372,69 @@ public class ChannelPool {
      * Return a channel to the pool.
      */
     public void returnChannel(Channel channel) {
-        if (channel != null && channel.isOpen()) {
-            pool.offer(channel);
+        inUse.decrementAndGet();
+        ChannelState state = channel != null ? channelStates.get(channel) : null;
+        if (state == null) {
+            LOGGER.warn("Cannot return unknown channel to pool");
+            return;
+        }
+        if (channel.isOpen()) {
+            state.slot.pool.offer(channel);
         } else {
             LOGGER.warn("Cannot return closed channel to pool");
+            channelStates.remove(channel);
             // Try to create a new channel to maintain pool size
             try {
-                Channel newChannel = connection.createChannel();
-                newChannel.confirmSelect();
-                pool.offer(newChannel);
+                state.slot.pool.offer(openChannel(state.slot));
             } catch (IOException e) {
                 LOGGER.error("Failed to create replacement channel", e);
             }
         }
     }
 
+    private void recordWait(long waitNanos) {
+        acquisitions.incrementAndGet();
+        waitNanosTotal.addAndGet(waitNanos);
+        waitNanosMax.accumulateAndGet(waitNanos, Math::max);
+    }
+
     /**
      * Close all channels and the connection.
      */
     public void close() {
         LOGGER.info("Closing channel pool");
-        while (!pool.isEmpty()) {
+        Channel affine;
+        while ((affine = allAffineChannels.poll()) != null) {
+            closeQuietly(affine);
+        }
+        for (ConnectionSlot slot : slots) {
+            while (!slot.pool.isEmpty()) {
+                closeQuietly(slot.pool.poll());
+            }
+            for (Stripe stripe : slot.stripes) {
+                if (stripe != null) {
+                    closeQuietly(stripe.channel);
+                }
+            }
             try {
-                Channel channel = pool.poll();
-                if (channel != null && channel.isOpen()) {
-                    channel.close();
+                if (slot.connection.isOpen()) {
+                    slot.connection.close();
                 }
-            } catch (Exception e) {
-                LOGGER.warn("Error closing channel", e);
+            } catch (IOException e) {
+                LOGGER.warn("Error closing connection", e);
             }
         }
+        LOGGER.info("Channel pool closed");
+    }
 
+    private void closeQuietly(Channel channel) {
         try {
-            if (connection != null && connection.isOpen()) {
-                connection.close();
+            if (channel != null && channel.isOpen()) {
+                channel.close();
             }
-        } catch (IOException e) {
-            LOGGER.warn("Error closing connection", e);
+        } catch (Exception e) {
+            LOGGER.warn("Error closing channel", e);
         }
-        LOGGER.info("Channel pool closed");
     }
 
     public int getPoolSize() {
@@ -129,6 +442,259 @@ public class ChannelPool {
     }
 
     public int getAvailableChannels() {
-        return pool.size();
+        int available = 0;
+        for (ConnectionSlot slot : slots) {
+            available += slot.pool.size();
+        }
+        return available;
+    }
+
+    /**
+     * Total publishes awaiting a broker confirm across all channels.
+     */
+    public int getOutstandingConfirms() {
+        int total = 0;
+        for (ChannelState state : channelStates.values()) {
+            total += state.tracker.getOutstanding();
+        }
+        return total;
+    }
+
+    /**
+     * Get channel access statistics.
+     */
+    public PoolStats getStats() {
+        int pooledChannels = 0;
+        for (ConnectionSlot slot : slots) {
+            pooledChannels += slot.pool.remainingCapacity() + slot.pool.size() + slot.stripes.length;
+        }
+        return new PoolStats(
+                ACCESS_MODE,
+                pooledChannels + affineCount.get(),
+                inUse.get(),
+                acquisitions.get(),
+                affineAcquisitions.get(),
+                fallbackBorrows.get(),
+                borrowTimeouts.get(),
+                waitNanosTotal.get(),
+                waitNanosMax.get()
+        );
+    }
+
+    /**
+     * Get broker flow-control statistics.
+     */
+    public FlowControlStats getFlowControlStats() {
+        int blocked = 0;
+        long blockedNanos = 0;
+        long events = 0;
+        String reason = null;
+        for (ConnectionSlot slot : slots) {
+            synchronized (slot) {
+                blockedNanos += slot.blockedNanosTotal;
+                events += slot.blockedEvents;
+                if (slot.blockedReason != null) {
+                    blocked++;
+                    blockedNanos += System.nanoTime() - slot.blockedSinceNanos;
+                    reason = slot.blockedReason;
+                }
+            }
+        }
+        return new FlowControlStats(blocked, events, blockedNanos / 1_000_000, blockedRejections.get(), reason);
+    }
+
+    /**
+     * Get per-connection publish statistics. Counts are cumulative and reading them changes nothing, so any
+     * number of pollers can derive rates from their own successive reads; the rate given is the average since
+     * the connection slot was opened.
+     */
+    public List<ConnectionStats> getConnectionStats() {
+        List<ConnectionStats> stats = new ArrayList<>(slots.length);
+        for (ConnectionSlot slot : slots) {
+            stats.add(slot.snapshot());
+        }
+        return stats;
+    }
+
+    /**
+     * One AMQP connection with its pooled channels and stripes.
+     */
+    private static final class ConnectionSlot {
+        private final int index;
+        private final Connection connection;
+        private final BlockingQueue<Channel> pool;
+        private final Stripe[] stripes;
+        private final AtomicLong messagesPublished = new AtomicLong(0);
+        private final AtomicLong bytesPublished = new AtomicLong(0);
+        private final long openedNanos = System.nanoTime();
+        // Broker flow control; the reason is null while publishing is allowed
+        private volatile String blockedReason;
+        private long blockedSinceNanos;
+        private long blockedNanosTotal;
+        private long blockedEvents;
+
+        ConnectionSlot(int index, Connection connection, int poolSize, int stripeCount) {
+            this.index = index;
+            this.connection = connection;
+            this.pool = new ArrayBlockingQueue<>(poolSize);
+            this.stripes = new Stripe[stripeCount];
+        }
+
+        synchronized void block(String reason) {
+            if (blockedReason == null) {
+                blockedSinceNanos = System.nanoTime();
+                blockedEvents++;
+                LOGGER.warn("Broker blocked publisher connection {}: {}", index, reason);
+            }
+            blockedReason = reason != null ? reason : "unknown";
+        }
+
+        synchronized void unblock() {
+            if (blockedReason != null) {
+                long blockedNanos = System.nanoTime() - blockedSinceNanos;
+                blockedNanosTotal += blockedNanos;
+                blockedReason = null;
+                LOGGER.info("Broker unblocked publisher connection {} after {}ms", index, blockedNanos / 1_000_000);
+            }
+        }
+
+        ConnectionStats snapshot() {
+            long messages = messagesPublished.get();
+            double seconds = (System.nanoTime() - openedNanos) / 1_000_000_000.0;
+            return new ConnectionStats(index, connection.isOpen(), blockedReason != null, messages,
+                    bytesPublished.get(), seconds > 0 ? messages / seconds : 0.0);
+        }
+    }
+
+    /**
+     * Bookkeeping attached to every channel the pool creates.
+     */
+    private static final class ChannelState {
+        private final ConfirmTracker tracker;
+        private final ConnectionSlot slot;
+
+        ChannelState(ConfirmTracker tracker, ConnectionSlot slot) {
+            this.tracker = tracker;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * A channel bound to a set of rooms, guarded by its own lock.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Channel channel;
+
+        Stripe(Channel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Channel access statistics data class.
+     */
+    public static class PoolStats {
+        public final String accessMode;
+        public final int totalChannels;
+        public final int inUse;
+        public final long acquisitions;
+        public final long affineAcquisitions;
+        public final long fallbackBorrows;
+        public final long borrowTimeouts;
+        public final long waitNanosTotal;
+        public final long waitNanosMax;
+
+        public PoolStats(String accessMode, int totalChannels, int inUse, long acquisitions,
+                         long affineAcquisitions, long fallbackBorrows, long borrowTimeouts,
+                         long waitNanosTotal, long waitNanosMax) {
+            this.accessMode = accessMode;
+            this.totalChannels = totalChannels;
+            this.inUse = inUse;
+            this.acquisitions = acquisitions;
+            this.affineAcquisitions = affineAcquisitions;
+            this.fallbackBorrows = fallbackBorrows;
+            this.borrowTimeouts = borrowTimeouts;
+            this.waitNanosTotal = waitNanosTotal;
+            this.waitNanosMax = waitNanosMax;
+        }
+
+        public double getUtilization() {
+            return totalChannels == 0 ? 0.0 : (double) inUse / totalChannels;
+        }
+
+        public double getAverageWaitMicros() {
+            long waited = acquisitions - affineAcquisitions;
+            return waited <= 0 ? 0.0 : waitNanosTotal / 1000.0 / waited;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PoolStats[mode=%s, channels=%d, inUse=%d, utilization=%.2f, acquisitions=%d, "
+                            + "affine=%d, fallbackBorrows=%d, timeouts=%d, avgWait=%.1fus, maxWait=%.1fus]",
+                    accessMode, totalChannels, inUse, getUtilization(), acquisitions, affineAcquisitions,
+                    fallbackBorrows, borrowTimeouts, getAverageWaitMicros(), waitNanosMax / 1000.0);
+        }
+    }
+
+    /**
+     * Per-connection publish statistics data class.
+     */
+    public static class ConnectionStats {
+        public final int connection;
+        public final boolean open;
+        public final boolean blocked;
+        public final long messagesPublished;
+        public final long bytesPublished;
+        // Average since the connection slot was opened; take deltas of messagesPublished for a current rate
+        public final double avgMessagesPerSecond;
+
+        public ConnectionStats(int connection, boolean open, boolean blocked, long messagesPublished,
+                               long bytesPublished, double avgMessagesPerSecond) {
+            this.connection = connection;
+            this.open = open;
+            this.blocked = blocked;
+            this.messagesPublished = messagesPublished;
+            this.bytesPublished = bytesPublished;
+            this.avgMessagesPerSecond = avgMessagesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ConnectionStats[connection=%d, open=%s, blocked=%s, messages=%d, bytes=%d, "
+                            + "avgRate=%.1f/s]",
+                    connection, open, blocked, messagesPublished, bytesPublished, avgMessagesPerSecond);
+        }
+    }
+
+    /**
+     * Broker flow-control statistics data class. {@code blockedMillis} includes blocks still in progress.
+     */
+    public static class FlowControlStats {
+        public final int blockedConnections;
+        public final long blockedEvents;
+        public final long blockedMillis;
+        public final long rejections;
+        public final String reason;
+
+        public FlowControlStats(int blockedConnections, long blockedEvents, long blockedMillis, long rejections,
+                                String reason) {
+            this.blockedConnections = blockedConnections;
+            this.blockedEvents = blockedEvents;
+            this.blockedMillis = blockedMillis;
+            this.rejections = rejections;
+            this.reason = reason;
+        }
+
+        public boolean isBlocked() {
+            return blockedConnections > 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("FlowControlStats[blockedConnections=%d, events=%d, blockedMs=%d, rejections=%d, "
+                            + "reason=%s]",
+                    blockedConnections, blockedEvents, blockedMillis, rejections, reason);
+        }
     }
 }
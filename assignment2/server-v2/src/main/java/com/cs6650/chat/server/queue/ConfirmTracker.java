@@ -0,0 +1,86 @@
+package com.cs6650.chat.server.queue;
+
+import com.rabbitmq.client.ConfirmListener;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Tracks outstanding publisher confirms for a single channel.
+ * Each publish registers a future under its sequence number; broker acks/nacks complete it,
+ * so many publishes can be in flight on one channel without waiting for each round trip.
+ */
+public class ConfirmTracker implements ConfirmListener {
+
+    private final ConcurrentNavigableMap<Long, CompletableFuture<Void>> outstanding = new ConcurrentSkipListMap<>();
+
+    /**
+     * Register a publish that is about to be sent with the given sequence number.
+     * Must be called before basicPublish so a fast ack cannot be missed.
+     */
+    public CompletableFuture<Void> register(long seqNo) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        outstanding.put(seqNo, future);
+        return future;
+    }
+
+    /**
+     * Fail a single registered publish, e.g. when basicPublish itself threw.
+     */
+    public void fail(long seqNo, Throwable cause) {
+        CompletableFuture<Void> future = outstanding.remove(seqNo);
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Fail every outstanding publish, used when the channel shuts down.
+     */
+    public void failAll(Throwable cause) {
+        Map.Entry<Long, CompletableFuture<Void>> entry;
+        while ((entry = outstanding.pollFirstEntry()) != null) {
+            entry.getValue().completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void handleAck(long deliveryTag, boolean multiple) {
+        complete(deliveryTag, multiple, null);
+    }
+
+    @Override
+    public void handleNack(long deliveryTag, boolean multiple) {
+        complete(deliveryTag, multiple, new IOException("Broker nacked publish " + deliveryTag));
+    }
+
+    private void complete(long deliveryTag, boolean multiple, Throwable error) {
+        if (multiple) {
+            Map<Long, CompletableFuture<Void>> confirmed = outstanding.headMap(deliveryTag, true);
+            for (CompletableFuture<Void> future : confirmed.values()) {
+                settle(future, error);
+            }
+            confirmed.clear();
+        } else {
+            CompletableFuture<Void> future = outstanding.remove(deliveryTag);
+            if (future != null) {
+                settle(future, error);
+            }
+        }
+    }
+
+    private void settle(CompletableFuture<Void> future, Throwable error) {
+        if (error == null) {
+            future.complete(null);
+        } else {
+            future.completeExceptionally(error);
+        }
+    }
+
+    public int getOutstanding() {
+        return outstanding.size();
+    }
+}
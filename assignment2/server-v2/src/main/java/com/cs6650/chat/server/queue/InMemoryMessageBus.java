@@ -0,0 +1,342 @@
+package com.cs6650.chat.server.queue;
+
+import com.cs6650.chat.server.model.ChatMessage;
+import com.cs6650.chat.server.model.QueueMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link MessageBus} inside the JVM: one {@link BoundedRingQueue} per room and one dispatcher thread per subscription.
+ * <p>
+ * Messages are passed as objects, so there is no encoding, socket or confirm round trip. A publish is "confirmed"
+ * once it is in the room queue and fails immediately when the queue is full ({@code BUS_MEMORY_CAPACITY}),
+ * which the ingest path reports to the client like a broker failure. Up to {@code BUS_PREFETCH} deliveries per room
+ * may be unacked; a requeued message is delivered again before the rest of the queue.
+ * Nothing survives a restart.
+ */
+public class InMemoryMessageBus implements MessageBus {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryMessageBus.class);
+
+    // Safety net for a missed wake-up; normally the dispatcher is unparked by publish/ack
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int prefetch;
+    private final String serverId;
+    private final RoomSequencer sequencer = new RoomSequencer();
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong delivered = new AtomicLong(0);
+    private final AtomicLong acked = new AtomicLong(0);
+    private final AtomicLong requeued = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    public InMemoryMessageBus(int capacity, int prefetch) {
+        this.capacity = capacity;
+        this.prefetch = Math.max(1, prefetch);
+        this.serverId = MessagePublisher.generateServerId();
+        LOGGER.info("In-memory message bus initialized with serverId: {}, room capacity: {}, prefetch: {}",
+                serverId, new BoundedRingQueue<>(capacity).capacity(), this.prefetch);
+    }
+
+    /**
+     * Create a bus configured from {@code BUS_MEMORY_CAPACITY} and {@code BUS_PREFETCH}.
+     */
+    public static InMemoryMessageBus fromEnvironment() {
+        return new InMemoryMessageBus(
+                Integer.parseInt(System.getenv().getOrDefault("BUS_MEMORY_CAPACITY", "65536")),
+                Integer.parseInt(System.getenv().getOrDefault("BUS_PREFETCH", "10")));
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId, String clientIp) {
+        Room room = room(roomId);
+        QueueMessage message = MessagePublisher.buildQueueMessage(chatMessage, roomId, clientIp, serverId, 0);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        // Numbered in the room's lane, so a rejected message takes no number
+        sequencer.forRoom(roomId).submit(roomSeq -> {
+            message.setRoomSeq(roomSeq);
+            if (!room.queue.offer(message)) {
+                rejected.incrementAndGet();
+                result.completeExceptionally(new IOException("Queue for room " + roomId + " is full"));
+                return 0;
+            }
+            published.incrementAndGet();
+            room.wakeDispatcher();
+            result.complete(null);
+            return 1;
+        });
+        return result;
+    }
+
+    /**
+     * Start the room's dispatcher thread. A room has at most one subscriber at a time.
+     */
+    @Override
+    public Subscription subscribe(String roomId, MessageHandler handler) {
+        Room room = room(roomId);
+        Dispatcher dispatcher = new Dispatcher(room, handler);
+        if (!room.dispatcher.compareAndSet(null, dispatcher)) {
+            throw new IllegalStateException("Room " + roomId + " already has a subscriber");
+        }
+        dispatcher.thread.start();
+        LOGGER.info("Subscribed to in-memory room {}", roomId);
+        return dispatcher::stop;
+    }
+
+    private Room room(String roomId) {
+        return rooms.computeIfAbsent(roomId, id -> new Room(id, capacity));
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public void close() {
+        for (Room room : rooms.values()) {
+            Dispatcher dispatcher = room.dispatcher.get();
+            if (dispatcher != null) {
+                dispatcher.stop();
+            }
+        }
+    }
+
+    /**
+     * One room: its queue, the deliveries handed back for redelivery and the current subscriber.
+     */
+    private static final class Room {
+        private final String roomId;
+        private final BoundedRingQueue<QueueMessage> queue;
+        private final Queue<QueueMessage> redeliveries = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Dispatcher> dispatcher = new AtomicReference<>();
+
+        Room(String roomId, int capacity) {
+            this.roomId = roomId;
+            this.queue = new BoundedRingQueue<>(capacity);
+        }
+
+        void wakeDispatcher() {
+            Dispatcher current = dispatcher.get();
+            if (current != null) {
+                current.wake();
+            }
+        }
+    }
+
+    /**
+     * Delivers a room's messages in order on its own thread, keeping at most {@link #prefetch} unacked.
+     */
+    private final class Dispatcher implements Runnable {
+        private final Room room;
+        private final MessageHandler handler;
+        private final Thread thread;
+        private final AtomicInteger unacked = new AtomicInteger(0);
+        private volatile boolean idle;
+        private volatile boolean running = true;
+
+        Dispatcher(Room room, MessageHandler handler) {
+            this.room = room;
+            this.handler = handler;
+            this.thread = new Thread(this, "Bus-Room-" + room.roomId);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                QueueMessage message = unacked.get() < prefetch ? next() : null;
+                if (message == null) {
+                    idle = true;
+                    // Re-check after publishing the idle flag so a concurrent wake-up is not lost
+                    if (unacked.get() >= prefetch || (room.redeliveries.isEmpty() && room.queue.isEmpty())) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                deliver(message);
+            }
+            room.dispatcher.compareAndSet(this, null);
+        }
+
+        private QueueMessage next() {
+            QueueMessage message = room.redeliveries.poll();
+            return message != null ? message : room.queue.poll();
+        }
+
+        private void deliver(QueueMessage message) {
+            unacked.incrementAndGet();
+            delivered.incrementAndGet();
+            InMemoryDelivery delivery = new InMemoryDelivery(this, message);
+            try {
+                handler.onMessage(message, delivery);
+            } catch (RuntimeException e) {
+                LOGGER.error("Handler failed for message {} in room {}, dropping it",
+                        message.getMessageId(), room.roomId, e);
+                delivery.nack(false);
+            }
+        }
+
+        void settled() {
+            unacked.decrementAndGet();
+            wake();
+        }
+
+        void wake() {
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private final class InMemoryDelivery implements Delivery {
+        private final Dispatcher dispatcher;
+        private final QueueMessage message;
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        InMemoryDelivery(Dispatcher dispatcher, QueueMessage message) {
+            this.dispatcher = dispatcher;
+            this.message = message;
+        }
+
+        @Override
+        public void ack() {
+            if (settled.compareAndSet(false, true)) {
+                acked.incrementAndGet();
+                dispatcher.settled();
+            }
+        }
+
+        @Override
+        public void nack(boolean requeue) {
+            if (settled.compareAndSet(false, true)) {
+                if (requeue) {
+                    requeued.incrementAndGet();
+                    dispatcher.room.redeliveries.offer(message);
+                } else {
+                    dropped.incrementAndGet();
+                }
+                dispatcher.settled();
+            }
+        }
+    }
+
+    /**
+     * Get in-memory bus statistics.
+     */
+    public MemoryBusStats getStats() {
+        int depth = 0;
+        int maxDepth = 0;
+        int unacked = 0;
+        for (Room room : rooms.values()) {
+            int roomDepth = room.queue.size() + room.redeliveries.size();
+            depth += roomDepth;
+            maxDepth = Math.max(maxDepth, roomDepth);
+            Dispatcher dispatcher = room.dispatcher.get();
+            if (dispatcher != null) {
+                unacked += dispatcher.unacked.get();
+            }
+        }
+        return new MemoryBusStats(rooms.size(), depth, maxDepth, unacked, published.get(), rejected.get(),
+                delivered.get(), acked.get(), requeued.get(), dropped.get());
+    }
+
+    /**
+     * In-memory bus statistics data class.
+     */
+    public static class MemoryBusStats {
+        public final int rooms;
+        public final int depth;
+        public final int maxRoomDepth;
+        public final int unacked;
+        public final long published;
+        public final long rejected;
+        public final long delivered;
+        public final long acked;
+        public final long requeued;
+        public final long dropped;
+
+        public MemoryBusStats(int rooms, int depth, int maxRoomDepth, int unacked, long published, long rejected,
+                              long delivered, long acked, long requeued, long dropped) {
+            this.rooms = rooms;
+            this.depth = depth;
+            this.maxRoomDepth = maxRoomDepth;
+            this.unacked = unacked;
+            this.published = published;
+            this.rejected = rejected;
+            this.delivered = delivered;
+            this.acked = acked;
+            this.requeued = requeued;
+            this.dropped = dropped;
+        }
+
+        public int getRooms() {
+            return rooms;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getMaxRoomDepth() {
+            return maxRoomDepth;
+        }
+
+        public int getUnacked() {
+            return unacked;
+        }
+
+        public long getPublished() {
+            return published;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getAcked() {
+            return acked;
+        }
+
+        public long getRequeued() {
+            return requeued;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MemoryBusStats[rooms=%d, depth=%d (max room %d), unacked=%d, published=%d, "
+                            + "rejected=%d, delivered=%d, acked=%d, requeued=%d, dropped=%d]",
+                    rooms, depth, maxRoomDepth, unacked, published, rejected, delivered, acked, requeued, dropped);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cs6650.chat.server.queue;
+
+import com.cs6650.chat.server.model.ChatMessage;
+import com.cs6650.chat.server.model.QueueMessage;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transport between the WebSocket ingest path and the room consumers.
+ * <p>
+ * {@code MESSAGE_BUS} selects the implementation:
+ * <ul>
+ *   <li>{@code rabbitmq} (default) – {@link RabbitMessageBus}, the broker deployment with separate consumer instances.</li>
+ *   <li>{@code memory} – {@link InMemoryMessageBus}, bounded per-room queues inside this JVM for single-node
+ *       deployments and broker-free benchmarks. Messages are lost on restart.</li>
+ * </ul>
+ * Both keep per-room order for a single subscriber and deliver each message until it is acked.
+ */
+public interface MessageBus {
+
+    /**
+     * Publish a validated chat message to its room.
+     *
+     * @return a future that completes once the bus has accepted the message (broker confirm, or enqueued
+     * in memory), and completes exceptionally if it was not accepted
+     */
+    CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId, String clientIp);
+
+    /**
+     * Start delivering a room's messages to a handler. Deliveries of one room arrive on one thread at a time,
+     * in order, and stay unacknowledged until the handler acks or nacks them.
+     */
+    Subscription subscribe(String roomId, MessageHandler handler) throws IOException;
+
+    /**
+     * Short implementation name for logs and health output.
+     */
+    String getName();
+
+    /**
+     * Stop deliveries and release the transport.
+     */
+    void close();
+
+    /**
+     * Create the bus configured by {@code MESSAGE_BUS}.
+     */
+    static MessageBus fromEnvironment() throws IOException, TimeoutException {
+        String type = System.getenv().getOrDefault("MESSAGE_BUS", "rabbitmq").toLowerCase();
+        switch (type) {
+            case "rabbitmq":
+                return new RabbitMessageBus(new MessagePublisher());
+            case "memory":
+                return InMemoryMessageBus.fromEnvironment();
+            default:
+                throw new IllegalArgumentException("Unknown MESSAGE_BUS: " + type);
+        }
+    }
+
+    /**
+     * Receives a room's messages.
+     */
+    interface MessageHandler {
+        void onMessage(QueueMessage message, Delivery delivery);
+    }
+
+    /**
+     * Settles one delivery. Exactly one of the methods should be called.
+     */
+    interface Delivery {
+        void ack();
+
+        /**
+         * @param requeue true to deliver the message again, false to drop it
+         */
+        void nack(boolean requeue);
+    }
+
+    /**
+     * Handle of an active subscription.
+     */
+    interface Subscription {
+        void cancel();
+    }
+}
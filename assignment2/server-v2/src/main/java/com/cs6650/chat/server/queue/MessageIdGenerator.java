@@ -0,0 +1,44 @@
+package com.cs6650.chat.server.queue;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered message ids in the UUID version 7 layout, for messages that arrive without a {@code messageId}.
+ * <p>
+ * The top 48 bits are Unix milliseconds and the next 12 a counter within the millisecond, so ids from one
+ * generator strictly increase and inserts land at the right edge of a B-tree index instead of all over it.
+ * The low 62 bits are drawn from {@link SecureRandom} once per generator and identify the node; after that no
+ * randomness is needed per id, unlike {@link UUID#randomUUID()}. More than 4096 ids in one millisecond borrow
+ * from the next millisecond, and a clock that steps back does not make ids go backwards.
+ * <p>
+ * The string form is a regular UUID, so it fits wherever a random UUID did and can be stored as a 16-byte
+ * {@code uuid} column.
+ */
+public class MessageIdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC4122 = 0x8000000000000000L;
+
+    // Unix millis << COUNTER_BITS | counter of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+    private final long node;
+
+    public MessageIdGenerator() {
+        this.node = (new SecureRandom().nextLong() >>> 2) | VARIANT_RFC4122;
+    }
+
+    public UUID nextUuid() {
+        long clock = System.currentTimeMillis() << COUNTER_BITS;
+        long next = last.accumulateAndGet(clock, (previous, now) -> now > previous ? now : previous + 1);
+        long millis = next >>> COUNTER_BITS;
+        return new UUID((millis << 16) | VERSION_7 | (next & COUNTER_MASK), node);
+    }
+
+    public String next() {
+        return nextUuid().toString();
+    }
+}
@@ -1,9 +1,14 @@
 package com.cs6650.chat.server.queue;
 
 import com.cs6650.chat.server.config.ObjectMapperProvider;
+import com.cs6650.chat.server.metrics.IngestMetrics;
 import com.cs6650.chat.server.model.ChatMessage;
 import com.cs6650.chat.server.model.QueueMessage;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cs6650.chat.server.spool.MessageSpool;
+import com.cs6650.chat.server.spool.SpoolDrainer;
+import com.cs6650.chat.server.spool.SpoolRecord;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.MessageProperties;
 import org.slf4j.Logger;
@@ -11,8 +16,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -25,24 +36,97 @@ public class MessagePublisher {
     private static final String ROUTING_KEY_PREFIX = "room.";
     private static final int CHANNEL_POOL_SIZE = Integer.parseInt(
             System.getenv().getOrDefault("CHANNEL_POOL_SIZE", "20"));
+    // "sync" waits for each confirm on the calling thread; "async" completes the caller's future when it arrives
+    private static final boolean ASYNC_CONFIRMS = "async".equalsIgnoreCase(
+            System.getenv().getOrDefault("PUBLISH_CONFIRM_MODE", "sync"));
+    private static final long CONFIRM_TIMEOUT_MS = Long.parseLong(
+            System.getenv().getOrDefault("CONFIRM_TIMEOUT_MS", "5000"));
+    // Optional per-room micro-batching: trades a few ms of latency for fewer confirm round trips
+    private static final boolean BATCH_ENABLED = Boolean.parseBoolean(
+            System.getenv().getOrDefault("PUBLISH_BATCH_ENABLED", "false"));
+    private static final int BATCH_MAX_MESSAGES = Integer.parseInt(
+            System.getenv().getOrDefault("PUBLISH_BATCH_MAX_MESSAGES", "50"));
+    private static final long BATCH_LINGER_MS = Long.parseLong(
+            System.getenv().getOrDefault("PUBLISH_BATCH_LINGER_MS", "5"));
+    private static final int BATCH_FLUSH_THREADS = Integer.parseInt(
+            System.getenv().getOrDefault("PUBLISH_BATCH_FLUSH_THREADS", "4"));
+
+    // "json" (default, readable) or "binary" (QueueMessageCodec); consumers pick the decoder by content type
+    private static final boolean BINARY_WIRE_FORMAT = "binary".equalsIgnoreCase(
+            System.getenv().getOrDefault("QUEUE_WIRE_FORMAT", "json"));
+    private static final AMQP.BasicProperties BINARY_PROPERTIES = new AMQP.BasicProperties.Builder()
+            .contentType(QueueMessageCodec.CONTENT_TYPE)
+            .deliveryMode(2)
+            .priority(0)
+            .build();
+
+    // Queues per room; PARTITION_KEY selects "user" or "stripe" routing between them
+    private static final int ROOM_PARTITIONS = Integer.parseInt(
+            System.getenv().getOrDefault("ROOM_PARTITIONS", "1"));
+    private static final String PARTITION_KEY = System.getenv().getOrDefault("PARTITION_KEY", "user");
+
+    // Optional local spool for messages the broker could not take
+    private static final boolean SPOOL_ENABLED = Boolean.parseBoolean(
+            System.getenv().getOrDefault("SPOOL_ENABLED", "false"));
+    private static final String SPOOL_DIR = System.getenv().getOrDefault("SPOOL_DIR",
+            Paths.get(System.getProperty("java.io.tmpdir"), "chat-spool").toString());
+    private static final int SPOOL_SEGMENT_MB = Integer.parseInt(
+            System.getenv().getOrDefault("SPOOL_SEGMENT_MB", "16"));
+    private static final int SPOOL_MAX_SEGMENTS = Integer.parseInt(
+            System.getenv().getOrDefault("SPOOL_MAX_SEGMENTS", "8"));
+    private static final MessageSpool.FsyncPolicy SPOOL_FSYNC = MessageSpool.FsyncPolicy.valueOf(
+            System.getenv().getOrDefault("SPOOL_FSYNC", "batch").toUpperCase());
+    private static final long SPOOL_FSYNC_INTERVAL_MS = Long.parseLong(
+            System.getenv().getOrDefault("SPOOL_FSYNC_INTERVAL_MS", "100"));
+    private static final int SPOOL_DRAIN_BATCH = Integer.parseInt(
+            System.getenv().getOrDefault("SPOOL_DRAIN_BATCH", "100"));
+
+    // Ids for messages that arrive without one; shared by both buses so ids from this node stay ordered
+    private static final MessageIdGenerator MESSAGE_IDS = new MessageIdGenerator();
 
     private final ChannelPool channelPool;
-    private final ObjectMapper objectMapper;
+    // Pre-built writer: encodes straight to UTF-8 bytes using Jackson's recycled buffers
+    private final ObjectWriter messageWriter;
     private final String serverId;
+    private final RoomBatchPublisher batchPublisher;
+    private final AMQP.BasicProperties messageProperties;
+    private final RoomPartitioner partitioner;
+    private final RoomSequencer sequencer = new RoomSequencer();
+    private final MessageSpool spool;
+    private final SpoolDrainer spoolDrainer;
 
     public MessagePublisher() throws IOException, TimeoutException {
         this.channelPool = new ChannelPool(CHANNEL_POOL_SIZE);
-        this.objectMapper = ObjectMapperProvider.get();
+        this.messageWriter = ObjectMapperProvider.get().writerFor(QueueMessage.class);
         this.serverId = generateServerId();
+        this.partitioner = new RoomPartitioner(ROUTING_KEY_PREFIX, ROOM_PARTITIONS, PARTITION_KEY);
+        this.messageProperties = BINARY_WIRE_FORMAT ? BINARY_PROPERTIES : MessageProperties.PERSISTENT_TEXT_PLAIN;
+        this.batchPublisher = BATCH_ENABLED
+                ? new RoomBatchPublisher(channelPool, sequencer, EXCHANGE_NAME, messageProperties,
+                        BATCH_MAX_MESSAGES, BATCH_LINGER_MS, CONFIRM_TIMEOUT_MS, BATCH_FLUSH_THREADS)
+                : null;
 
         // Setup exchange and queues
         setupRabbitMQ();
 
-        LOGGER.info("MessagePublisher initialized with serverId: {}", serverId);
+        if (SPOOL_ENABLED) {
+            this.spool = new MessageSpool(Paths.get(SPOOL_DIR), SPOOL_SEGMENT_MB * 1024 * 1024, SPOOL_MAX_SEGMENTS,
+                    SPOOL_FSYNC, SPOOL_FSYNC_INTERVAL_MS);
+            this.spoolDrainer = new SpoolDrainer(spool, this::republish, SPOOL_DRAIN_BATCH);
+            spoolDrainer.start();
+        } else {
+            this.spool = null;
+            this.spoolDrainer = null;
+        }
+
+        LOGGER.info("MessagePublisher initialized with serverId: {}, confirm mode: {}, batching: {}, wire format: {}, spool: {}, "
+                        + "partitions per room: {} (by {})",
+                serverId, ASYNC_CONFIRMS ? "async" : "sync", BATCH_ENABLED, BINARY_WIRE_FORMAT ? "binary" : "json",
+                SPOOL_ENABLED, partitioner.getPartitions(), partitioner.getPartitionKey());
     }
 
     /**
-     * Setup RabbitMQ exchange and queues for 20 rooms.
+     * Setup RabbitMQ exchange and queues for 20 rooms (one queue per room partition).
      */
     private void setupRabbitMQ() {
         Channel channel = null;
@@ -55,18 +139,21 @@ public class MessagePublisher {
 
             // Declare queues for rooms 1-20
             for (int roomId = 1; roomId <= 20; roomId++) {
-                String queueName = "room." + roomId;
-                String routingKey = ROUTING_KEY_PREFIX + roomId;
+                for (int partition = 0; partition < partitioner.getPartitions(); partition++) {
+                    // Queue name and routing key are identical
+                    String routingKey = partitioner.routingKey(String.valueOf(roomId), partition);
+                    String queueName = routingKey;
 
-                // Declare durable queue with TTL
-                channel.queueDeclare(queueName, true, false, false, null);
-                channel.queueBind(queueName, EXCHANGE_NAME, routingKey);
+                    // Declare durable queue with TTL
+                    channel.queueDeclare(queueName, true, false, false, null);
+                    channel.queueBind(queueName, EXCHANGE_NAME, routingKey);
 
-                LOGGER.debug("Declared and bound queue: {} with routing key: {}", queueName, routingKey);
+                    LOGGER.debug("Declared and bound queue: {} with routing key: {}", queueName, routingKey);
+                }
             }
 
-            LOGGER.info("RabbitMQ setup complete: 20 room queues created and bound");
-        } catch (IOException | InterruptedException e) {
+            LOGGER.info("RabbitMQ setup complete: {} room queues created and bound", 20 * partitioner.getPartitions());
+        } catch (IOException | InterruptedException | TimeoutException e) {
             LOGGER.error("Failed to setup RabbitMQ", e);
             if (e instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
@@ -80,60 +167,326 @@ public class MessagePublisher {
     }
 
     /**
-     * Publish a chat message to the appropriate room queue.
+     * Publish a chat message to the appropriate room queue, waiting for the broker confirm on the calling thread.
+     * With the spool enabled, a message the broker cannot take is spooled instead and counts as accepted.
+     *
+     * @return an already completed future, failed if the message could neither be published nor spooled
      */
-    public void publishMessage(ChatMessage chatMessage, String roomId, String clientIp) {
-        Channel channel = null;
+    public CompletableFuture<Void> publishMessage(ChatMessage chatMessage, String roomId, String clientIp) {
+        // Build queue message
+        QueueMessage queueMessage = buildQueueMessage(chatMessage, roomId, clientIp);
+        String routingKey = partitioner.routingKeyFor(roomId, queueMessage.getUserId());
+        CompletableFuture<Void> result = publishInOrder(roomId, routingKey, queueMessage, null);
+
+        // Wait for confirmation
         try {
-            channel = channelPool.borrowChannel();
+            result.get();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for confirm", e);
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (ExecutionException e) {
+            // Already logged where it failed; the future carries the cause
+        }
+        return result;
+    }
+
+    /**
+     * Publish a chat message without waiting for the broker confirm.
+     * The returned future completes when the broker acks the publish, or exceptionally on nack,
+     * channel shutdown or confirm timeout.
+     * With batching enabled the message joins its room batch and the future completes with the batch.
+     * With the spool enabled, failed publishes are spooled and the future completes normally.
+     */
+    public CompletableFuture<Void> publishMessageAsync(ChatMessage chatMessage, String roomId, String clientIp) {
+        QueueMessage queueMessage = buildQueueMessage(chatMessage, roomId, clientIp);
+        String routingKey = partitioner.routingKeyFor(roomId, queueMessage.getUserId());
+        if (batchPublisher == null || spoolBacklogged()) {
+            return publishInOrder(roomId, routingKey, queueMessage, null);
+        }
+
+        BatchEntry entry = new BatchEntry(queueMessage, roomId);
+        CompletableFuture<Void> batched = batchPublisher.submit(roomId, routingKey, entry);
+        if (spool == null) {
+            return batched;
+        }
+        return batched
+                .handle((ignored, error) -> error == null
+                        ? CompletableFuture.<Void>completedFuture(null)
+                        : entry.spool(routingKey, error))
+                .thenCompose(result -> result);
+    }
+
+    /**
+     * Number, encode and publish a message as a step in its room's lane, so numbers follow the order messages
+     * reach the broker and no lock is held while publishing. The channel is held only for basicPublish.
+     * With {@code spoolCause} set, or while the spool has a backlog, the message goes to the spool instead.
+     *
+     * @return future completed when the broker confirms the message or it is spooled
+     */
+    private CompletableFuture<Void> publishInOrder(String roomId, String routingKey, QueueMessage queueMessage,
+                                                  Throwable spoolCause) {
+        if (spoolCause != null && spool == null) {
+            return CompletableFuture.failedFuture(spoolCause);
+        }
+        CompletableFuture<CompletableFuture<Void>> sent = new CompletableFuture<>();
+        sequencer.forRoom(roomId).submit(roomSeq -> {
+            byte[] messageBytes;
+            try {
+                messageBytes = stampAndEncode(queueMessage, roomSeq);
+            } catch (IOException e) {
+                LOGGER.error("Failed to encode message for room {}", roomId, e);
+                sent.complete(CompletableFuture.failedFuture(e));
+                return 0;
+            }
+            if (spoolCause != null || spoolBacklogged()) {
+                return spoolStep(routingKey, messageBytes, spoolCause, sent);
+            }
+            return publishStep(roomId, routingKey, queueMessage, messageBytes, sent);
+        });
+        return sent.thenCompose(confirm -> confirm);
+    }
 
-            // Build queue message
-            QueueMessage queueMessage = new QueueMessage(
-                    chatMessage.getMessageId() != null ? chatMessage.getMessageId() : UUID.randomUUID().toString(),
-                    roomId,
-                    String.valueOf(chatMessage.getUserId()),
-                    chatMessage.getUsername(),
-                    chatMessage.getMessage(),
-                    chatMessage.getTimestamp() != null ? chatMessage.getTimestamp() : Instant.now(),
-                    chatMessage.getMessageType(),
-                    serverId,
-                    clientIp
-            );
-
-            // Serialize to JSON
-            String messageJson = objectMapper.writeValueAsString(queueMessage);
-            byte[] messageBytes = messageJson.getBytes("UTF-8");
-
-            // Publish to exchange with routing key
-            String routingKey = ROUTING_KEY_PREFIX + roomId;
-            channel.basicPublish(
-                    EXCHANGE_NAME,
-                    routingKey,
-                    MessageProperties.PERSISTENT_TEXT_PLAIN,
-                    messageBytes
-            );
-
-            // Wait for confirmation
-            channel.waitForConfirmsOrDie(5000);
-
-            LOGGER.debug("Published message {} to room {}", queueMessage.getMessageId(), roomId);
+    /**
+     * Publish an encoded message; runs in the room's lane.
+     *
+     * @return 1 if the message was published or spooled, 0 if its number is still free
+     */
+    private int publishStep(String roomId, String routingKey, QueueMessage queueMessage, byte[] messageBytes,
+                            CompletableFuture<CompletableFuture<Void>> sent) {
+        Channel channel;
+        long borrowStart = System.nanoTime();
+        try {
+            channel = channelPool.acquireChannel(roomId);
         } catch (InterruptedException e) {
             LOGGER.error("Interrupted while borrowing channel", e);
             Thread.currentThread().interrupt();
-        } catch (IOException | TimeoutException e) {
+            return spoolStep(routingKey, messageBytes, e, sent);
+        } catch (BrokerBlockedException e) {
+            // Nothing was sent; spool the message or let the client retry once the broker recovers
+            LOGGER.debug("Not publishing to room {}: {}", roomId, e.getMessage());
+            return spoolStep(routingKey, messageBytes, e, sent);
+        } catch (IOException | TimeoutException | RuntimeException e) {
             LOGGER.error("Failed to publish message to room {}", roomId, e);
-            // In production, implement retry logic or dead letter queue
+            return spoolStep(routingKey, messageBytes, e, sent);
+        }
+
+        try {
+            IngestMetrics.CHANNEL_BORROW.recordSince(borrowStart);
+            long publishStart = System.nanoTime();
+            ConfirmTracker tracker = channelPool.getConfirmTracker(channel);
+            long seqNo = channel.getNextPublishSeqNo();
+            CompletableFuture<Void> confirm = tracker.register(seqNo);
+            try {
+                // Publish to exchange with routing key
+                channel.basicPublish(
+                        EXCHANGE_NAME,
+                        routingKey,
+                        messageProperties,
+                        messageBytes
+                );
+            } catch (IOException e) {
+                tracker.fail(seqNo, e);
+                LOGGER.error("Failed to publish message to room {}", roomId, e);
+                return spoolStep(routingKey, messageBytes, e, sent);
+            }
+            long confirmStart = System.nanoTime();
+            IngestMetrics.PUBLISH.record(confirmStart - publishStart);
+            confirm.thenRun(() -> IngestMetrics.CONFIRM.recordSince(confirmStart));
+            channelPool.recordPublish(channel, 1, messageBytes.length);
+
+            LOGGER.debug("Published message {} to room {} (seqNo {}, awaiting confirm)",
+                    queueMessage.getMessageId(), roomId, seqNo);
+            // A message that was sent keeps its number even if the confirm fails
+            sent.complete(withSpoolFallback(confirm.orTimeout(CONFIRM_TIMEOUT_MS, TimeUnit.MILLISECONDS),
+                    routingKey, messageBytes));
+            return 1;
         } finally {
-            if (channel != null) {
-                channelPool.returnChannel(channel);
+            channelPool.releaseChannel(roomId, channel);
+        }
+    }
+
+    /**
+     * Spool an encoded message that was not sent; runs in the room's lane.
+     *
+     * @return 1 if the message was spooled, 0 if its number is still free
+     */
+    private int spoolStep(String routingKey, byte[] messageBytes, Throwable cause,
+                          CompletableFuture<CompletableFuture<Void>> sent) {
+        CompletableFuture<Void> spooled = spoolOrFail(routingKey, messageBytes, cause);
+        sent.complete(spooled);
+        return spooled.isCompletedExceptionally() ? 0 : 1;
+    }
+
+    /**
+     * While spooled messages are waiting, new messages queue behind them to keep their order.
+     */
+    private boolean spoolBacklogged() {
+        return spool != null && !spool.isEmpty();
+    }
+
+    /**
+     * Stamp a message with its room sequence number and encode it.
+     */
+    private byte[] stampAndEncode(QueueMessage queueMessage, long roomSeq) throws IOException {
+        queueMessage.setRoomSeq(roomSeq);
+        long encodeStart = System.nanoTime();
+        byte[] messageBytes = encode(queueMessage);
+        IngestMetrics.ENCODE.recordSince(encodeStart);
+        return messageBytes;
+    }
+
+    /**
+     * Spool a message that was not published, if the spool is enabled and has room.
+     */
+    private CompletableFuture<Void> spoolOrFail(String routingKey, byte[] messageBytes, Throwable cause) {
+        if (spool == null) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        try {
+            if (spool.append(routingKey, messageProperties.getContentType(), messageBytes)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            IOException full = new IOException("Message spool is full");
+            if (cause != null) {
+                full.addSuppressed(cause);
+            }
+            LOGGER.error("Dropping message for {}: spool is full", routingKey);
+            return CompletableFuture.failedFuture(full);
+        } catch (IOException e) {
+            LOGGER.error("Failed to spool message for {}", routingKey, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Void> withSpoolFallback(CompletableFuture<Void> publish, String routingKey,
+                                                      byte[] messageBytes) {
+        if (spool == null) {
+            return publish;
+        }
+        return publish
+                .handle((ignored, error) -> error == null
+                        ? CompletableFuture.<Void>completedFuture(null)
+                        : spoolOrFail(routingKey, messageBytes, error))
+                .thenCompose(result -> result);
+    }
+
+    /**
+     * Republish a batch of spooled messages and wait for all of their confirms (used by the spool drainer).
+     * Pooled channels may still carry other publishes awaiting confirms, so only this batch's confirms are
+     * waited for, through the channel's confirm tracker; a nack for someone else's message does not fail it.
+     */
+    private void republish(List<SpoolRecord> records) throws IOException, InterruptedException, TimeoutException {
+        Channel channel = channelPool.borrowChannel();
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(records.size());
+        long bytes = 0;
+        try {
+            ConfirmTracker tracker = channelPool.getConfirmTracker(channel);
+            for (SpoolRecord record : records) {
+                AMQP.BasicProperties properties = QueueMessageCodec.CONTENT_TYPE.equals(record.getContentType())
+                        ? BINARY_PROPERTIES
+                        : MessageProperties.PERSISTENT_TEXT_PLAIN;
+                long seqNo = channel.getNextPublishSeqNo();
+                confirms.add(tracker.register(seqNo));
+                try {
+                    channel.basicPublish(EXCHANGE_NAME, record.getRoutingKey(), properties, record.getBody());
+                } catch (IOException e) {
+                    tracker.fail(seqNo, e);
+                    throw e;
+                }
+                bytes += record.getBody().length;
             }
+        } finally {
+            channelPool.returnChannel(channel);
+        }
+        try {
+            CompletableFuture.allOf(confirms.toArray(new CompletableFuture<?>[0]))
+                    .get(CONFIRM_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IOException("Republished spool batch was not confirmed", e.getCause());
+        }
+        channelPool.recordPublish(channel, records.size(), bytes);
+    }
+
+    /**
+     * Encode a broker message in the configured wire format.
+     */
+    private byte[] encode(QueueMessage queueMessage) throws IOException {
+        return BINARY_WIRE_FORMAT ? QueueMessageCodec.encode(queueMessage) : messageWriter.writeValueAsBytes(queueMessage);
+    }
+
+    /**
+     * Build the broker message from a validated chat message; its room sequence number is stamped on publish.
+     */
+    private QueueMessage buildQueueMessage(ChatMessage chatMessage, String roomId, String clientIp) {
+        return buildQueueMessage(chatMessage, roomId, clientIp, serverId, 0);
+    }
+
+    static QueueMessage buildQueueMessage(ChatMessage chatMessage, String roomId, String clientIp, String serverId,
+                                          long roomSeq) {
+        QueueMessage queueMessage = new QueueMessage(
+                chatMessage.getMessageId() != null ? chatMessage.getMessageId() : MESSAGE_IDS.next(),
+                roomId,
+                String.valueOf(chatMessage.getUserId()),
+                chatMessage.getUsername(),
+                chatMessage.getMessage(),
+                chatMessage.getTimestamp() != null ? chatMessage.getTimestamp() : Instant.now(),
+                chatMessage.getMessageType(),
+                serverId,
+                clientIp
+        );
+        queueMessage.setRoomSeq(roomSeq);
+        return queueMessage;
+    }
+
+    /**
+     * A message in a room batch. It is numbered and encoded in its room's lane as its batch is published, so
+     * numbers follow the order messages reach the broker and a message that is not sent takes none.
+     */
+    private final class BatchEntry implements RoomBatchPublisher.Entry {
+        private final QueueMessage queueMessage;
+        private final String roomId;
+        private volatile byte[] encoded;
+
+        BatchEntry(QueueMessage queueMessage, String roomId) {
+            this.queueMessage = queueMessage;
+            this.roomId = roomId;
+        }
+
+        @Override
+        public byte[] encode(long roomSeq) throws IOException {
+            encoded = stampAndEncode(queueMessage, roomSeq);
+            return encoded;
+        }
+
+        @Override
+        public void discard() {
+            encoded = null;
+            queueMessage.setRoomSeq(0);
+        }
+
+        /**
+         * Spool the message after its batch failed: as sent if it was published, otherwise numbered in the lane.
+         */
+        CompletableFuture<Void> spool(String routingKey, Throwable cause) {
+            byte[] sent = encoded;
+            return sent != null
+                    ? spoolOrFail(routingKey, sent, cause)
+                    : publishInOrder(roomId, routingKey, queueMessage, cause);
         }
     }
 
+    /**
+     * Whether the endpoint should use {@link #publishMessageAsync} instead of the blocking path.
+     */
+    public boolean isAsyncPublishing() {
+        return ASYNC_CONFIRMS || batchPublisher != null;
+    }
+
     /**
      * Generate a unique server ID.
      */
-    private String generateServerId() {
+    static String generateServerId() {
         try {
             String hostname = InetAddress.getLocalHost().getHostName();
             return hostname + "-" + UUID.randomUUID().toString().substring(0, 8);
@@ -143,13 +496,32 @@ public class MessagePublisher {
     }
 
     /**
-     * Close the channel pool.
+     * Close the batch publisher, the spool and the channel pool.
      */
     public void close() {
+        if (batchPublisher != null) {
+            batchPublisher.close();
+        }
+        if (spoolDrainer != null) {
+            spoolDrainer.stop();
+            spool.close();
+        }
         channelPool.close();
     }
 
+    public RoomPartitioner getPartitioner() {
+        return partitioner;
+    }
+
     public ChannelPool getChannelPool() {
         return channelPool;
     }
+
+    public RoomBatchPublisher getBatchPublisher() {
+        return batchPublisher;
+    }
+
+    public SpoolDrainer getSpoolDrainer() {
+        return spoolDrainer;
+    }
 }
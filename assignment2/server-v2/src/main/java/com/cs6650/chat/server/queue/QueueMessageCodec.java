@@ -0,0 +1,305 @@
+package com.cs6650.chat.server.queue;
+
+import com.cs6650.chat.server.model.MessageType;
+import com.cs6650.chat.server.model.QueueMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link QueueMessage}, sent with content type {@link #CONTENT_TYPE}.
+ * <p>
+ * Layout (version 2; version 1 is the same without {@code roomSeq}):
+ * <pre>
+ *   byte    version
+ *   byte    flags         bit0 messageId is a UUID, bit1 roomId is numeric, bit2 userId is numeric
+ *   ...     messageId     16 bytes (UUID) or string
+ *   ...     roomId        varint (numeric) or string
+ *   ...     userId        varint (numeric) or string
+ *   varint  timestamp     epoch microseconds + 1, 0 when absent
+ *   byte    messageType   ordinal + 1, 0 when absent
+ *   string  username, message, serverId, clientIp
+ *   varint  roomSeq       per-room sequence number, 0 when not stamped
+ * </pre>
+ * Strings are a varint of (UTF-8 length + 1) followed by the bytes; 0 encodes null.
+ * Numeric/UUID forms are only used when they reproduce the original string exactly.
+ */
+public final class QueueMessageCodec {
+
+    public static final String CONTENT_TYPE = "application/x-chat-message";
+    private static final byte VERSION = 2;
+
+    private static final int FLAG_UUID_ID = 1;
+    private static final int FLAG_NUMERIC_ROOM = 1 << 1;
+    private static final int FLAG_NUMERIC_USER = 1 << 2;
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    // Scratch buffer reused by the encoding thread; the result is copied out at exact length
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private QueueMessageCodec() {
+    }
+
+    public static byte[] encode(QueueMessage message) {
+        Buffer out = BUFFERS.get();
+        out.reset();
+
+        UUID uuid = asUuid(message.getMessageId());
+        long roomId = asNumber(message.getRoomId());
+        long userId = asNumber(message.getUserId());
+        int flags = (uuid != null ? FLAG_UUID_ID : 0)
+                | (roomId >= 0 ? FLAG_NUMERIC_ROOM : 0)
+                | (userId >= 0 ? FLAG_NUMERIC_USER : 0);
+
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeString(message.getMessageId());
+        }
+        if (roomId >= 0) {
+            out.writeVarLong(roomId);
+        } else {
+            out.writeString(message.getRoomId());
+        }
+        if (userId >= 0) {
+            out.writeVarLong(userId);
+        } else {
+            out.writeString(message.getUserId());
+        }
+
+        Instant timestamp = message.getTimestamp();
+        out.writeVarLong(timestamp == null ? 0
+                : timestamp.getEpochSecond() * 1_000_000L + timestamp.getNano() / 1_000 + 1);
+        out.writeByte(message.getMessageType() == null ? 0 : message.getMessageType().ordinal() + 1);
+
+        out.writeString(message.getUsername());
+        out.writeString(message.getMessage());
+        out.writeString(message.getServerId());
+        out.writeString(message.getClientIp());
+        out.writeVarLong(message.getRoomSeq());
+        return out.toByteArray();
+    }
+
+    public static QueueMessage decode(byte[] body) {
+        Reader in = new Reader(body);
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported message encoding version " + version);
+        }
+        int flags = in.readByte();
+
+        QueueMessage message = new QueueMessage();
+        if ((flags & FLAG_UUID_ID) != 0) {
+            message.setMessageId(new UUID(in.readLong(), in.readLong()).toString());
+        } else {
+            message.setMessageId(in.readString());
+        }
+        message.setRoomId((flags & FLAG_NUMERIC_ROOM) != 0 ? Long.toString(in.readVarLong()) : in.readString());
+        message.setUserId((flags & FLAG_NUMERIC_USER) != 0 ? Long.toString(in.readVarLong()) : in.readString());
+
+        long micros = in.readVarLong() - 1;
+        if (micros >= 0) {
+            message.setTimestamp(Instant.ofEpochSecond(micros / 1_000_000L, (micros % 1_000_000L) * 1_000));
+        }
+        int type = in.readByte();
+        message.setMessageType(type == 0 || type > MESSAGE_TYPES.length ? null : MESSAGE_TYPES[type - 1]);
+
+        message.setUsername(in.readString());
+        message.setMessage(in.readString());
+        message.setServerId(in.readString());
+        message.setClientIp(in.readString());
+        if (version >= 2) {
+            message.setRoomSeq(in.readVarLong());
+        }
+        return message;
+    }
+
+    /**
+     * Parse a canonical lower-case UUID string, or null if the string would not round-trip.
+     */
+    private static UUID asUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse a canonical non-negative decimal (no sign, no leading zeros), or -1 if not numeric.
+     */
+    private static long asNumber(String value) {
+        if (value == null || value.isEmpty() || value.length() > 18
+                || (value.length() > 1 && value.charAt(0) == '0')) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Growable write buffer.
+     */
+    private static final class Buffer {
+        private byte[] bytes = new byte[512];
+        private int position;
+
+        void reset() {
+            position = 0;
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            int length = utf8Length(value);
+            writeVarLong(length + 1L);
+            ensure(length);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogate, same replacement as String.getBytes
+                    bytes[position++] = (byte) '?';
+                } else {
+                    bytes[position++] = (byte) (0xE0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private static int utf8Length(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    length += 1;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, position);
+        }
+    }
+
+    /**
+     * Sequential reader over an encoded body.
+     */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString() {
+            long length = readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.cs6650.chat.server.queue;
+
+import com.cs6650.chat.server.config.ObjectMapperProvider;
+import com.cs6650.chat.server.model.ChatMessage;
+import com.cs6650.chat.server.model.QueueMessage;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link MessageBus} on RabbitMQ: publishing goes through {@link MessagePublisher} (confirm mode, batching, spool
+ * and partitioning as configured there) and each subscription consumes the room's partition queues on its own channel.
+ */
+public class RabbitMessageBus implements MessageBus {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RabbitMessageBus.class);
+
+    // Unacked deliveries per subscription, as PREFETCH_COUNT on the consumer
+    private static final int PREFETCH = Integer.parseInt(System.getenv().getOrDefault("BUS_PREFETCH", "10"));
+
+    private final MessagePublisher publisher;
+    private final ObjectReader messageReader = ObjectMapperProvider.get().readerFor(QueueMessage.class);
+
+    public RabbitMessageBus(MessagePublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId, String clientIp) {
+        // In async mode the future completes from the broker confirm instead of blocking the caller
+        return publisher.isAsyncPublishing()
+                ? publisher.publishMessageAsync(chatMessage, roomId, clientIp)
+                : publisher.publishMessage(chatMessage, roomId, clientIp);
+    }
+
+    /**
+     * Consume every partition queue of the room on one channel, so deliveries arrive on one thread in order
+     * per partition. Messages that cannot be decoded are rejected without requeue.
+     */
+    @Override
+    public Subscription subscribe(String roomId, MessageHandler handler) throws IOException {
+        Channel channel = publisher.getChannelPool().openConsumerChannel(roomId);
+        channel.basicQos(PREFETCH);
+        RoomPartitioner partitioner = publisher.getPartitioner();
+        DefaultConsumer consumer = new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties,
+                                       byte[] body) throws IOException {
+                long deliveryTag = envelope.getDeliveryTag();
+                QueueMessage message;
+                try {
+                    message = QueueMessageCodec.CONTENT_TYPE.equals(properties.getContentType())
+                            ? QueueMessageCodec.decode(body)
+                            : messageReader.readValue(body);
+                } catch (IOException | IllegalArgumentException e) {
+                    LOGGER.error("Rejecting undecodable message from {}", envelope.getRoutingKey(), e);
+                    channel.basicReject(deliveryTag, false);
+                    return;
+                }
+                handler.onMessage(message, new Delivery() {
+                    @Override
+                    public void ack() {
+                        settle(() -> channel.basicAck(deliveryTag, false));
+                    }
+
+                    @Override
+                    public void nack(boolean requeue) {
+                        settle(() -> channel.basicNack(deliveryTag, false, requeue));
+                    }
+                });
+            }
+        };
+        for (int partition = 0; partition < partitioner.getPartitions(); partition++) {
+            channel.basicConsume(partitioner.routingKey(roomId, partition), false, consumer);
+        }
+        LOGGER.info("Subscribed to room {} ({} partition queue(s), prefetch {})",
+                roomId, partitioner.getPartitions(), PREFETCH);
+        return () -> {
+            try {
+                if (channel.isOpen()) {
+                    channel.close();
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Error closing consumer channel for room {}", roomId, e);
+            }
+        };
+    }
+
+    private interface ChannelAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * Ack or nack; if the channel is gone the broker redelivers the message anyway.
+     */
+    private static void settle(ChannelAction action) {
+        try {
+            action.run();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not settle delivery: {}", e.toString());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "rabbitmq";
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    public MessagePublisher getPublisher() {
+        return publisher;
+    }
+}
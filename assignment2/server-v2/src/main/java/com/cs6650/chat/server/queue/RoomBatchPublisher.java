@@ -0,0 +1,313 @@
+package com.cs6650.chat.server.queue;
+
+import com.cs6650.chat.server.metrics.IngestMetrics;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional batching stage in front of RabbitMQ.
+ * Messages are collected per room and flushed when a batch reaches its size limit or the linger
+ * window expires. A flush publishes the batch back to back on one channel; its confirms are tracked per channel,
+ * so a broker ack with {@code multiple=true} settles the whole group, and each caller's future completes only once
+ * its batch is confirmed.
+ * <p>
+ * A flush runs as a step in the room's {@link RoomSequencer} lane, the same lane single publishes of the room go
+ * through: batches of every partition of a room and single publishes are numbered by one runner in the order
+ * they are sent, and a message is numbered (encoded) only as it is published. The flushing thread only queues the
+ * step when the lane is busy, so one slow room cannot hold up the shared flusher threads.
+ */
+public class RoomBatchPublisher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomBatchPublisher.class);
+
+    private final ChannelPool channelPool;
+    private final RoomSequencer sequencer;
+    private final String exchangeName;
+    private final AMQP.BasicProperties properties;
+    private final int maxMessages;
+    private final long lingerMs;
+    private final long confirmTimeoutMs;
+    private final Map<String, RoomBatch> batches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    // Statistics
+    private final AtomicLong batchesFlushed = new AtomicLong(0);
+    private final AtomicLong messagesFlushed = new AtomicLong(0);
+    private final AtomicLong batchesFailed = new AtomicLong(0);
+
+    public RoomBatchPublisher(ChannelPool channelPool, RoomSequencer sequencer, String exchangeName,
+                              AMQP.BasicProperties properties, int maxMessages, long lingerMs, long confirmTimeoutMs,
+                              int flushThreads) {
+        this.channelPool = channelPool;
+        this.sequencer = sequencer;
+        this.exchangeName = exchangeName;
+        this.properties = properties;
+        this.maxMessages = maxMessages;
+        this.lingerMs = lingerMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.flusher = Executors.newScheduledThreadPool(flushThreads, r -> {
+            Thread t = new Thread(r, "RoomBatch-Flusher");
+            t.setDaemon(true);
+            return t;
+        });
+
+        LOGGER.info("RoomBatchPublisher initialized: maxMessages={}, linger={}ms, flushThreads={}",
+                maxMessages, lingerMs, flushThreads);
+    }
+
+    /**
+     * A message waiting in a room batch.
+     */
+    public interface Entry {
+        /**
+         * Stamp the message with its room sequence number and encode it; called in the room's lane just before it
+         * is published.
+         */
+        byte[] encode(long roomSeq) throws IOException;
+
+        /**
+         * The encoded message could not be handed to the broker, so its number was not used.
+         */
+        void discard();
+    }
+
+    /**
+     * Queue a message for its room batch.
+     *
+     * @return future completed when the batch containing the message is confirmed by the broker
+     */
+    public CompletableFuture<Void> submit(String roomId, String routingKey, Entry entry) {
+        return batches.computeIfAbsent(routingKey, key -> new RoomBatch(roomId, key)).add(entry);
+    }
+
+    /**
+     * Flush every pending batch and stop the flusher.
+     */
+    public void close() {
+        for (RoomBatch batch : batches.values()) {
+            batch.flush();
+        }
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(confirmTimeoutMs, TimeUnit.MILLISECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publish a batch on one channel, numbering messages from {@code firstSeq}; runs in the room's lane.
+     * Confirms are awaited asynchronously, so the lane moves on as soon as the batch is sent.
+     *
+     * @return how many messages were published
+     */
+    private int publishBatch(String roomId, String routingKey, List<PendingPublish> batch, long firstSeq) {
+        Channel channel;
+        long borrowStart = System.nanoTime();
+        try {
+            channel = channelPool.borrowChannel(roomId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failBatch(routingKey, batch, e);
+            return 0;
+        } catch (IOException | TimeoutException | RuntimeException e) {
+            failBatch(routingKey, batch, e);
+            return 0;
+        }
+
+        List<PendingPublish> sent = new ArrayList<>(batch.size());
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(batch.size());
+        long bytes = 0;
+        long publishStart = System.nanoTime();
+        try {
+            IngestMetrics.CHANNEL_BORROW.record(publishStart - borrowStart);
+            ConfirmTracker tracker = channelPool.getConfirmTracker(channel);
+            for (int i = 0; i < batch.size(); i++) {
+                PendingPublish pending = batch.get(i);
+                byte[] body;
+                try {
+                    body = pending.entry.encode(firstSeq + sent.size());
+                } catch (IOException e) {
+                    LOGGER.error("Failed to encode message for {}", routingKey, e);
+                    pending.future.completeExceptionally(e);
+                    continue;
+                }
+                long seqNo = channel.getNextPublishSeqNo();
+                CompletableFuture<Void> confirm = tracker.register(seqNo);
+                try {
+                    channel.basicPublish(exchangeName, routingKey, properties, body);
+                } catch (IOException e) {
+                    tracker.fail(seqNo, e);
+                    pending.entry.discard();
+                    // This message and the rest of the batch were not sent
+                    failBatch(routingKey, batch.subList(i, batch.size()), e);
+                    break;
+                }
+                sent.add(pending);
+                confirms.add(confirm);
+                bytes += body.length;
+            }
+        } finally {
+            channelPool.returnChannel(channel);
+        }
+        if (sent.isEmpty()) {
+            return 0;
+        }
+
+        long confirmStart = System.nanoTime();
+        IngestMetrics.PUBLISH.record(confirmStart - publishStart);
+        channelPool.recordPublish(channel, sent.size(), bytes);
+        CompletableFuture.allOf(confirms.toArray(new CompletableFuture<?>[0]))
+                .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        failBatch(routingKey, sent, error);
+                        return;
+                    }
+                    IngestMetrics.CONFIRM.recordSince(confirmStart);
+                    for (PendingPublish pending : sent) {
+                        pending.future.complete(null);
+                    }
+                    batchesFlushed.incrementAndGet();
+                    messagesFlushed.addAndGet(sent.size());
+                    LOGGER.debug("Flushed batch of {} messages to {}", sent.size(), routingKey);
+                });
+        return sent.size();
+    }
+
+    private void failBatch(String routingKey, List<PendingPublish> batch, Throwable cause) {
+        batchesFailed.incrementAndGet();
+        if (cause instanceof BrokerBlockedException) {
+            LOGGER.warn("Not publishing batch of {} messages to {}: {}", batch.size(), routingKey, cause.getMessage());
+        } else {
+            LOGGER.error("Failed to publish batch of {} messages to {}", batch.size(), routingKey, cause);
+        }
+        for (PendingPublish pending : batch) {
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    public long getBatchesFlushed() {
+        return batchesFlushed.get();
+    }
+
+    public long getMessagesFlushed() {
+        return messagesFlushed.get();
+    }
+
+    public long getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    public double getAverageBatchSize() {
+        long flushed = batchesFlushed.get();
+        return flushed == 0 ? 0.0 : (double) messagesFlushed.get() / flushed;
+    }
+
+    /**
+     * Pending messages for one room (routing key).
+     */
+    private final class RoomBatch {
+        private final String roomId;
+        private final String routingKey;
+        private final RoomSequencer.Sequence sequence;
+        private List<PendingPublish> pending;
+        private ScheduledFuture<?> lingerTask;
+
+        RoomBatch(String roomId, String routingKey) {
+            this.roomId = roomId;
+            this.routingKey = routingKey;
+            this.sequence = sequencer.forRoom(roomId);
+            this.pending = new ArrayList<>(maxMessages);
+        }
+
+        CompletableFuture<Void> add(Entry entry) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            boolean full;
+            synchronized (this) {
+                pending.add(new PendingPublish(entry, future));
+                full = pending.size() >= maxMessages;
+                if (!full && pending.size() == 1) {
+                    // First message of a new batch starts the linger window
+                    lingerTask = flusher.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (full) {
+                flusher.execute(this::flush);
+            }
+            return future;
+        }
+
+        /**
+         * Queue a flush in the room's lane. The batch is taken when the step runs, so batches of this routing key
+         * go out in order however many flushes were queued; one that finds nothing pending does nothing.
+         */
+        void flush() {
+            sequence.submit(this::takeAndPublish);
+        }
+
+        /**
+         * Publish what is pending, in batches of at most {@code maxMessages}; a partial batch left over is published
+         * now only if nothing else was.
+         *
+         * @return how many numbers the published messages used
+         */
+        private int takeAndPublish(long firstSeq) {
+            int used = 0;
+            while (true) {
+                List<PendingPublish> batch;
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        return used;
+                    }
+                    if (used > 0 && pending.size() < maxMessages) {
+                        if ((lingerTask == null || lingerTask.isDone()) && !flusher.isShutdown()) {
+                            lingerTask = flusher.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+                        }
+                        return used;
+                    }
+                    if (pending.size() <= maxMessages) {
+                        batch = pending;
+                        pending = new ArrayList<>(maxMessages);
+                        if (lingerTask != null) {
+                            lingerTask.cancel(false);
+                            lingerTask = null;
+                        }
+                    } else {
+                        List<PendingPublish> head = pending.subList(0, maxMessages);
+                        batch = new ArrayList<>(head);
+                        head.clear();
+                    }
+                }
+                used += publishBatch(roomId, routingKey, batch, firstSeq + used);
+            }
+        }
+    }
+
+    private static final class PendingPublish {
+        private final Entry entry;
+        private final CompletableFuture<Void> future;
+
+        PendingPublish(Entry entry, CompletableFuture<Void> future) {
+            this.entry = entry;
+            this.future = future;
+        }
+    }
+}
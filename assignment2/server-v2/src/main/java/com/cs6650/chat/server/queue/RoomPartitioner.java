@@ -0,0 +1,62 @@
+package com.cs6650.chat.server.queue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps messages of a room onto its partition queues.
+ * <p>
+ * With one partition (the default) every room keeps its single {@code room.N} queue. With more, room N
+ * is split into {@code room.N.0 .. room.N.(P-1)} so consumers can process a hot room in parallel:
+ * <ul>
+ *   <li>{@code user} – partition by user id; each user's messages stay in order.</li>
+ *   <li>{@code stripe} – rotate through the partitions per room, spreading load evenly with no ordering
+ *       guarantee inside the room.</li>
+ * </ul>
+ */
+public class RoomPartitioner {
+
+    private final String routingKeyPrefix;
+    private final int partitions;
+    private final boolean byUser;
+    private final Map<String, AtomicLong> roomSequences = new ConcurrentHashMap<>();
+
+    public RoomPartitioner(String routingKeyPrefix, int partitions, String partitionKey) {
+        this.routingKeyPrefix = routingKeyPrefix;
+        this.partitions = Math.max(1, partitions);
+        this.byUser = !"stripe".equalsIgnoreCase(partitionKey);
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public String getPartitionKey() {
+        return byUser ? "user" : "stripe";
+    }
+
+    /**
+     * Routing key (and queue name) of a room partition.
+     */
+    public String routingKey(String roomId, int partition) {
+        return partitions == 1 ? routingKeyPrefix + roomId : routingKeyPrefix + roomId + "." + partition;
+    }
+
+    /**
+     * Routing key for one message of a room.
+     */
+    public String routingKeyFor(String roomId, String userId) {
+        if (partitions == 1) {
+            return routingKeyPrefix + roomId;
+        }
+        int partition;
+        if (byUser) {
+            partition = Math.floorMod(userId != null ? userId.hashCode() : 0, partitions);
+        } else {
+            long sequence = roomSequences.computeIfAbsent(roomId, key -> new AtomicLong()).getAndIncrement();
+            partition = (int) Math.floorMod(sequence, (long) partitions);
+        }
+        return routingKey(roomId, partition);
+    }
+}
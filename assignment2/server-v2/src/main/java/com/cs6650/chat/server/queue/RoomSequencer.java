@@ -0,0 +1,127 @@
+package com.cs6650.chat.server.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out per-room sequence numbers (1, 2, 3, ...) for messages published by this server.
+ * <p>
+ * Sequences are per node: together with the server id, which is new on every start, {@code (serverId, roomSeq)}
+ * identifies a message's position in its room's stream from this node. Numbers follow the order messages reach
+ * the broker (or the spool), and a message that is neither published nor spooled takes none, so consumers have
+ * no gap to wait out.
+ * <p>
+ * Each room is an ordered lane of publish {@link Step steps}. A publisher {@link Sequence#submit submits} its step
+ * and returns; whichever thread finds the lane idle runs the queued steps one after another, handing each the
+ * room's next number. The lock only guards the queue, so no thread ever waits on network or disk I/O while holding
+ * it, and a step reports how many numbers it used, so a failed publish simply leaves its number to the next step.
+ */
+public class RoomSequencer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomSequencer.class);
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    public Sequence forRoom(String roomId) {
+        Sequence sequence = sequences.get(roomId);
+        if (sequence == null) {
+            sequence = sequences.computeIfAbsent(roomId, key -> new Sequence(roomId));
+        }
+        return sequence;
+    }
+
+    /**
+     * Work that publishes (or spools) messages of one room in lane order.
+     */
+    public interface Step {
+        /**
+         * Number and hand off messages, starting at {@code firstSeq}. Runs on the lane's current runner, which may
+         * not be the submitting thread; it should not wait for broker confirms.
+         *
+         * @return how many consecutive numbers from {@code firstSeq} were used
+         */
+        int run(long firstSeq);
+    }
+
+    /**
+     * One room's lane and counter.
+     */
+    public static final class Sequence {
+        private final String roomId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Step> steps = new ArrayDeque<>();
+        private boolean running;
+        // Only the runner moves the counter; runners hand over through the lock
+        private long last;
+
+        Sequence(String roomId) {
+            this.roomId = roomId;
+        }
+
+        /**
+         * Queue a step behind the room's earlier ones. If no other thread is running the lane, the calling thread
+         * runs it, along with anything queued meanwhile, before returning.
+         */
+        public void submit(Step step) {
+            lock.lock();
+            try {
+                steps.addLast(step);
+                if (running) {
+                    return;
+                }
+                running = true;
+            } finally {
+                lock.unlock();
+            }
+            runSteps();
+        }
+
+        private void runSteps() {
+            while (true) {
+                Step step;
+                long firstSeq;
+                lock.lock();
+                try {
+                    step = steps.pollFirst();
+                    if (step == null) {
+                        running = false;
+                        return;
+                    }
+                    firstSeq = last + 1;
+                } finally {
+                    lock.unlock();
+                }
+                int used = 0;
+                try {
+                    used = step.run(firstSeq);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unhandled error publishing to room {}", roomId, e);
+                }
+                if (used > 0) {
+                    lock.lock();
+                    try {
+                        last += used;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Last number used.
+         */
+        public long getLast() {
+            lock.lock();
+            try {
+                return last;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.cs6650.chat.server.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local write-ahead spool for messages that could not be published to RabbitMQ.
+ * <p>
+ * Records are appended to fixed-size memory-mapped segment files ({@code spool-NNNNNNNNNN.seg}).
+ * Each segment starts with a 16 byte header – magic, write position, read position – so the spool
+ * survives a restart and resumes from the last committed read. Disk usage is bounded by
+ * {@code segmentBytes * maxSegments}; once every segment is full, appends are rejected.
+ * <p>
+ * A single drainer reads records in append order with {@link #peek(int)} and acknowledges them with
+ * {@link #commit(List)}; fully drained segments are deleted.
+ * <p>
+ * Appends can run on virtual threads and may force pages to disk, so the spool is guarded by a
+ * {@link ReentrantLock} rather than its monitor, which would pin the carrier thread before Java 24.
+ */
+public class MessageSpool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageSpool.class);
+
+    private static final int MAGIC = 0x53504F4C; // "SPOL"
+    private static final int HEADER_BYTES = 16;
+    private static final int WRITE_POS_OFFSET = 4;
+    private static final int READ_POS_OFFSET = 8;
+
+    /**
+     * When mapped pages are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /** Leave flushing to the OS; survives a process crash but not a host crash. */
+        NONE,
+        /** Force the active segment on a fixed interval. */
+        BATCH,
+        /** Force after every append. */
+        ALWAYS
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    // Oldest first; the last segment is the one being appended to
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService fsyncScheduler;
+    private long nextSegmentId;
+    private volatile long depth;
+
+    // Statistics
+    private final AtomicLong appended = new AtomicLong(0);
+    private final AtomicLong appendRejected = new AtomicLong(0);
+    private final AtomicLong drained = new AtomicLong(0);
+
+    public MessageSpool(Path directory, int segmentBytes, int maxSegments,
+                        FsyncPolicy fsyncPolicy, long fsyncIntervalMs) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.fsyncPolicy = fsyncPolicy;
+
+        Files.createDirectories(directory);
+        recover();
+        if (segments.isEmpty()) {
+            segments.add(createSegment());
+        }
+
+        if (fsyncPolicy == FsyncPolicy.BATCH) {
+            this.fsyncScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "Spool-Fsync");
+                t.setDaemon(true);
+                return t;
+            });
+            fsyncScheduler.scheduleAtFixedRate(this::forceActiveSegment, fsyncIntervalMs, fsyncIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.fsyncScheduler = null;
+        }
+
+        LOGGER.info("Message spool at {}: {} segment(s) of {} bytes (max {}), fsync={}, recovered depth={}",
+                directory, segments.size(), segmentBytes, maxSegments, fsyncPolicy, depth);
+    }
+
+    /**
+     * Re-open segments left by a previous run, oldest first, and count their unread records.
+     */
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "spool-*.seg")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+
+        long recovered = 0;
+        for (Path file : files) {
+            // Never reuse an existing file name, even of a segment that cannot be opened
+            nextSegmentId = Math.max(nextSegmentId, segmentId(file) + 1);
+            Segment segment;
+            try {
+                segment = Segment.open(file);
+            } catch (IOException e) {
+                LOGGER.error("Skipping unreadable spool segment {}", file, e);
+                continue;
+            }
+            if (segment.readPos == segment.writePos) {
+                if (!files.get(files.size() - 1).equals(file)) {
+                    segment.delete();
+                    continue;
+                }
+                segment.rewind();
+            }
+            recovered += segment.countRecords();
+            segments.add(segment);
+        }
+        depth = recovered;
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("spool-".length(), name.length() - ".seg".length()));
+    }
+
+    private Segment createSegment() throws IOException {
+        long id = nextSegmentId++;
+        return Segment.create(directory.resolve(String.format("spool-%010d.seg", id)), segmentBytes);
+    }
+
+    /**
+     * Append a message to the spool.
+     *
+     * @return false if the spool is full (or the record can never fit in a segment)
+     */
+    public boolean append(String routingKey, String contentType, byte[] body) throws IOException {
+        lock.lock();
+        try {
+            byte[] key = routingKey.getBytes(StandardCharsets.UTF_8);
+            byte[] type = (contentType != null ? contentType : "").getBytes(StandardCharsets.UTF_8);
+            int recordLength = 2 + key.length + 2 + type.length + body.length;
+            int recordSize = 4 + recordLength;
+            if (recordSize > segmentBytes - HEADER_BYTES) {
+                appendRejected.incrementAndGet();
+                return false;
+            }
+
+            Segment segment = segments.peekLast();
+            if (segment.remaining() < recordSize) {
+                if (segments.size() >= maxSegments) {
+                    appendRejected.incrementAndGet();
+                    return false;
+                }
+                if (fsyncPolicy != FsyncPolicy.NONE) {
+                    segment.buffer.force();
+                }
+                segment = createSegment();
+                segments.addLast(segment);
+            }
+
+            ByteBuffer buffer = segment.buffer;
+            buffer.position(segment.writePos);
+            buffer.putInt(recordLength);
+            buffer.putShort((short) key.length);
+            buffer.put(key);
+            buffer.putShort((short) type.length);
+            buffer.put(type);
+            buffer.put(body);
+            segment.setWritePos(segment.writePos + recordSize);
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                segment.buffer.force();
+            }
+
+            depth++;
+            appended.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read up to {@code max} unread records in append order without consuming them.
+     */
+    public List<SpoolRecord> peek(int max) {
+        lock.lock();
+        try {
+            List<SpoolRecord> records = new ArrayList<>(Math.min(max, 64));
+            for (Segment segment : segments) {
+                int position = segment.readPos;
+                while (position < segment.writePos && records.size() < max) {
+                    SpoolRecord record = segment.read(position);
+                    records.add(record);
+                    position = record.endPosition;
+                }
+                if (records.size() >= max) {
+                    break;
+                }
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark records returned by {@link #peek(int)} as published. Must be called in peek order.
+     */
+    public void commit(List<SpoolRecord> records) {
+        lock.lock();
+        try {
+            for (SpoolRecord record : records) {
+                record.segment.setReadPos(record.endPosition);
+            }
+            depth -= records.size();
+            drained.addAndGet(records.size());
+
+            // Drop fully drained segments except the active one, which is rewound for reuse
+            Iterator<Segment> it = segments.iterator();
+            while (it.hasNext()) {
+                Segment segment = it.next();
+                if (segment.readPos < segment.writePos) {
+                    break;
+                }
+                if (segment == segments.peekLast()) {
+                    segment.rewind();
+                    break;
+                }
+                it.remove();
+                segment.delete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    public long getDepth() {
+        return depth;
+    }
+
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppended() {
+        return appended.get();
+    }
+
+    public long getAppendRejected() {
+        return appendRejected.get();
+    }
+
+    public long getDrained() {
+        return drained.get();
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public int getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    private void forceActiveSegment() {
+        lock.lock();
+        try {
+            Segment segment = segments.peekLast();
+            if (segment != null) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush and close all segments. Unread records stay on disk for the next start.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (fsyncScheduler != null) {
+                fsyncScheduler.shutdownNow();
+            }
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            LOGGER.info("Message spool closed with depth {}", depth);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One memory-mapped segment file.
+     */
+    static final class Segment {
+        private final Path path;
+        private final FileChannel fileChannel;
+        private final MappedByteBuffer buffer;
+        private int writePos;
+        private int readPos;
+
+        private Segment(Path path, FileChannel fileChannel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.fileChannel = fileChannel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, int size) throws IOException {
+            FileChannel fileChannel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(path, fileChannel, fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            segment.buffer.putInt(0, MAGIC);
+            segment.rewind();
+            return segment;
+        }
+
+        static Segment open(Path path) throws IOException {
+            FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = fileChannel.size();
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int writePos = buffer.getInt(WRITE_POS_OFFSET);
+            int readPos = buffer.getInt(READ_POS_OFFSET);
+            if (buffer.getInt(0) != MAGIC || readPos < HEADER_BYTES || readPos > writePos || writePos > size) {
+                fileChannel.close();
+                throw new IOException("Corrupt spool segment header in " + path);
+            }
+            Segment segment = new Segment(path, fileChannel, buffer);
+            segment.writePos = writePos;
+            segment.readPos = readPos;
+            return segment;
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePos;
+        }
+
+        void setWritePos(int writePos) {
+            this.writePos = writePos;
+            buffer.putInt(WRITE_POS_OFFSET, writePos);
+        }
+
+        void setReadPos(int readPos) {
+            this.readPos = readPos;
+            buffer.putInt(READ_POS_OFFSET, readPos);
+        }
+
+        void rewind() {
+            setReadPos(HEADER_BYTES);
+            setWritePos(HEADER_BYTES);
+        }
+
+        SpoolRecord read(int position) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            int recordLength = view.getInt();
+            byte[] key = new byte[view.getShort()];
+            view.get(key);
+            byte[] type = new byte[view.getShort()];
+            view.get(type);
+            byte[] body = new byte[recordLength - 2 - key.length - 2 - type.length];
+            view.get(body);
+            return new SpoolRecord(new String(key, StandardCharsets.UTF_8),
+                    type.length == 0 ? null : new String(type, StandardCharsets.UTF_8),
+                    body, this, position + 4 + recordLength);
+        }
+
+        long countRecords() {
+            long count = 0;
+            int position = readPos;
+            while (position < writePos) {
+                position += 4 + buffer.getInt(position);
+                count++;
+            }
+            return count;
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                fileChannel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Error closing spool segment {}", path, e);
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete drained spool segment {}", path, e);
+            }
+        }
+    }
+}
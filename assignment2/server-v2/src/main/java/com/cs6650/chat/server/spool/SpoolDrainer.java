@@ -0,0 +1,159 @@
+package com.cs6650.chat.server.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background thread that republishes spooled messages in order once the broker accepts them again.
+ * Records are taken in batches; a batch is committed only after the publisher has had it confirmed,
+ * so a crash or failure mid-batch republishes (at-least-once) rather than loses messages.
+ */
+public class SpoolDrainer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpoolDrainer.class);
+
+    private static final long IDLE_POLL_MS = 100;
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    /**
+     * Publishes a batch of spooled records and returns only once the broker confirmed all of them.
+     */
+    public interface BatchPublisher {
+        void publish(List<SpoolRecord> records) throws Exception;
+    }
+
+    private final MessageSpool spool;
+    private final BatchPublisher publisher;
+    private final int batchSize;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Statistics
+    private final AtomicLong drainFailures = new AtomicLong(0);
+    private final long startNanos = System.nanoTime();
+
+    public SpoolDrainer(MessageSpool spool, BatchPublisher publisher, int batchSize) {
+        this.spool = spool;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+        this.thread = new Thread(this::run, "Spool-Drainer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+        LOGGER.info("Spool drainer started (batch size {})", batchSize);
+    }
+
+    private void run() {
+        long backoffMs = MIN_BACKOFF_MS;
+        while (running) {
+            try {
+                List<SpoolRecord> records = spool.peek(batchSize);
+                if (records.isEmpty()) {
+                    Thread.sleep(IDLE_POLL_MS);
+                    continue;
+                }
+                try {
+                    publisher.publish(records);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    drainFailures.incrementAndGet();
+                    LOGGER.warn("Failed to republish {} spooled messages, retrying in {}ms: {}",
+                            records.size(), backoffMs, e.toString());
+                    Thread.sleep(backoffMs);
+                    backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+                    continue;
+                }
+                spool.commit(records);
+                backoffMs = MIN_BACKOFF_MS;
+                if (spool.isEmpty()) {
+                    LOGGER.info("Spool drained");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Stop draining; undrained records remain in the spool.
+     */
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Messages waiting in the spool.
+     */
+    public long getDepth() {
+        return spool.getDepth();
+    }
+
+    /**
+     * Get spool statistics. Counts are cumulative and reading them changes nothing; the drain rate given is the
+     * average since start, so take the difference of two reads for a current rate.
+     */
+    public SpoolStats getStats() {
+        long drained = spool.getDrained();
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        double rate = seconds > 0 ? drained / seconds : 0.0;
+        return new SpoolStats(
+                spool.getFsyncPolicy().name().toLowerCase(),
+                spool.getDepth(),
+                spool.getSegmentCount(),
+                (long) spool.getSegmentCount() * spool.getSegmentBytes(),
+                spool.getAppended(),
+                spool.getAppendRejected(),
+                drained,
+                drainFailures.get(),
+                rate
+        );
+    }
+
+    /**
+     * Spool statistics data class.
+     */
+    public static class SpoolStats {
+        public final String fsyncPolicy;
+        public final long depth;
+        public final int segments;
+        public final long diskBytes;
+        public final long appended;
+        public final long appendRejected;
+        public final long drained;
+        public final long drainFailures;
+        public final double avgDrainRatePerSecond;
+
+        public SpoolStats(String fsyncPolicy, long depth, int segments, long diskBytes, long appended,
+                          long appendRejected, long drained, long drainFailures, double avgDrainRatePerSecond) {
+            this.fsyncPolicy = fsyncPolicy;
+            this.depth = depth;
+            this.segments = segments;
+            this.diskBytes = diskBytes;
+            this.appended = appended;
+            this.appendRejected = appendRejected;
+            this.drained = drained;
+            this.drainFailures = drainFailures;
+            this.avgDrainRatePerSecond = avgDrainRatePerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SpoolStats[depth=%d, segments=%d, appended=%d, rejected=%d, drained=%d, "
+                            + "drainFailures=%d, avgDrainRate=%.1f/s]",
+                    depth, segments, appended, appendRejected, drained, drainFailures, avgDrainRatePerSecond);
+        }
+    }
+}
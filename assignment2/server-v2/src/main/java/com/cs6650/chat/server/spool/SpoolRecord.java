@@ -0,0 +1,33 @@
+package com.cs6650.chat.server.spool;
+
+/**
+ * A spooled message waiting to be republished.
+ */
+public class SpoolRecord {
+    private final String routingKey;
+    private final String contentType;
+    private final byte[] body;
+    // Position of the record within the spool, used when it is committed
+    final MessageSpool.Segment segment;
+    final int endPosition;
+
+    SpoolRecord(String routingKey, String contentType, byte[] body, MessageSpool.Segment segment, int endPosition) {
+        this.routingKey = routingKey;
+        this.contentType = contentType;
+        this.body = body;
+        this.segment = segment;
+        this.endPosition = endPosition;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -6,7 +6,6 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * Validates incoming {@link ChatMessage} instances against the assignment rules.
@@ -18,84 +17,122 @@ public class MessageValidator {
     private static final int USER_ID_MAX = 100_000;
     private static final int MESSAGE_MIN_LENGTH = 1;
     private static final int MESSAGE_MAX_LENGTH = 500;
-    private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9]{3,20}$");
+    private static final int USERNAME_MIN_LENGTH = 3;
+    private static final int USERNAME_MAX_LENGTH = 20;
 
     /**
      * Validate the given message and collect any violations.
+     * The error list is only allocated once a violation is found.
      *
      * @param message message payload to validate
      * @return ValidationResult containing overall validity and error messages
      */
     public ValidationResult validate(ChatMessage message) {
-        List<String> errors = new ArrayList<>();
-
         if (message == null) {
-            errors.add("Message body is required.");
-            return ValidationResult.invalid(errors);
+            return ValidationResult.invalid(List.of("Message body is required."));
         }
 
-        validateUserId(message.getUserId(), errors);
-        validateUsername(message.getUsername(), errors);
-        validateMessage(message.getMessage(), errors);
-        validateTimestamp(message.getTimestamp(), errors);
-        validateMessageType(message.getMessageType(), errors);
+        List<String> errors = null;
+        errors = collect(errors, validateUserId(message.getUserId()));
+        errors = collect(errors, validateUsername(message.getUsername()));
+        errors = collect(errors, validateMessage(message.getMessage()));
+        errors = collect(errors, validateTimestamp(message.getTimestamp()));
+        errors = collect(errors, validateMessageType(message.getMessageType()));
 
-        return errors.isEmpty() ? ValidationResult.valid()
-                                : ValidationResult.invalid(errors);
+        return errors == null ? ValidationResult.valid()
+                              : ValidationResult.invalid(errors);
+    }
+
+    private static List<String> collect(List<String> errors, String error) {
+        if (error == null) {
+            return errors;
+        }
+        if (errors == null) {
+            errors = new ArrayList<>(2);
+        }
+        errors.add(error);
+        return errors;
     }
 
     // userId must be present and within the allowed numeric range.
-    private void validateUserId(Integer userId, List<String> errors) {
+    private String validateUserId(Integer userId) {
         if (userId == null) {
-            errors.add("userId is required.");
-            return;
+            return "userId is required.";
         }
-        if (userId < USER_ID_MIN || userId > USER_ID_MAX) {
-            errors.add("userId must be between 1 and 100000.");
+        if (!isValidUserId(userId)) {
+            return "userId must be between 1 and 100000.";
         }
+        return null;
     }
 
     // username must be present and meet the 3-20 alphanumeric constraint.
-    private void validateUsername(String username, List<String> errors) {
+    private String validateUsername(String username) {
         if (username == null || username.isBlank()) {
-            errors.add("username is required.");
-            return;
+            return "username is required.";
         }
-        if (!USERNAME_PATTERN.matcher(username).matches()) {
-            errors.add("username must be 3-20 alphanumeric characters.");
+        if (!isValidUsername(username)) {
+            return "username must be 3-20 alphanumeric characters.";
         }
+        return null;
     }
 
     // message body must exist and be between 1 and 500 characters.
-    private void validateMessage(String message, List<String> errors) {
+    private String validateMessage(String message) {
         if (message == null) {
-            errors.add("message is required.");
-            return;
+            return "message is required.";
         }
-        int length = message.length();
-        if (length < MESSAGE_MIN_LENGTH || length > MESSAGE_MAX_LENGTH) {
-            errors.add("message must be between 1 and 500 characters.");
+        if (!isValidMessage(message)) {
+            return "message must be between 1 and 500 characters.";
         }
+        return null;
     }
 
     // timestamp must be present; Jackson parsing already enforces ISO-8601 format.
-    private void validateTimestamp(Instant timestamp, List<String> errors) {
+    private String validateTimestamp(Instant timestamp) {
         if (timestamp == null) {
-            errors.add("timestamp is required and must be ISO-8601 formatted.");
+            return "timestamp is required and must be ISO-8601 formatted.";
         }
+        return null;
     }
 
     // messageType must successfully resolve to a known enum value.
-    private void validateMessageType(MessageType type, List<String> errors) {
+    private String validateMessageType(MessageType type) {
         if (type == null) {
-            errors.add("messageType must be one of TEXT, JOIN, LEAVE.");
+            return "messageType must be one of TEXT, JOIN, LEAVE.";
         }
+        return null;
+    }
+
+    static boolean isValidUserId(int userId) {
+        return userId >= USER_ID_MIN && userId <= USER_ID_MAX;
+    }
+
+    // Equivalent to ^[a-zA-Z0-9]{3,20}$ without the regex matcher.
+    static boolean isValidUsername(String username) {
+        int length = username.length();
+        if (length < USERNAME_MIN_LENGTH || length > USERNAME_MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = username.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isValidMessage(String message) {
+        int length = message.length();
+        return length >= MESSAGE_MIN_LENGTH && length <= MESSAGE_MAX_LENGTH;
     }
 
     /**
      * Encapsulates the outcome of a validation pass, including failures when present.
      */
     public static final class ValidationResult {
+        private static final ValidationResult VALID = new ValidationResult(true, Collections.emptyList());
+
         private final boolean valid;
         private final List<String> errors;
 
@@ -105,7 +142,7 @@ public class MessageValidator {
         }
 
         public static ValidationResult valid() {
-            return new ValidationResult(true, Collections.emptyList());
+            return VALID;
         }
 
         public static ValidationResult invalid(List<String> errors) {
@@ -0,0 +1,239 @@
+package com.cs6650.chat.server.validation;
+
+import com.cs6650.chat.server.model.ChatMessage;
+import com.cs6650.chat.server.model.MessageType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+
+/**
+ * Single-pass parse-and-validate fast path for inbound chat messages.
+ * <p>
+ * Reads the payload with a streaming {@link JsonParser} and checks each field against the
+ * {@link MessageValidator} rules as it is read, so a valid message costs one pass and no
+ * allocation beyond the {@link ChatMessage} and its field values. Anything unusual – invalid
+ * values, missing fields, numeric timestamps, malformed JSON – returns {@code null}, and the
+ * caller falls back to full data binding plus {@link MessageValidator} to produce the error list.
+ * Stateless and thread-safe.
+ */
+public class StreamingMessageParser {
+
+    private final JsonFactory jsonFactory;
+
+    public StreamingMessageParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Parse and validate a payload.
+     *
+     * @param payload raw JSON frame
+     * @return the message if it is well-formed and valid, otherwise null
+     */
+    public ChatMessage parseValid(String payload) {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            ChatMessage message = new ChatMessage();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "messageId":
+                        if (value == JsonToken.VALUE_STRING) {
+                            message.setMessageId(parser.getText());
+                        } else if (value != JsonToken.VALUE_NULL) {
+                            return null;
+                        }
+                        break;
+                    case "clientSendTime":
+                        if (value == JsonToken.VALUE_STRING) {
+                            Instant clientSendTime = parseInstant(parser.getText());
+                            if (clientSendTime == null) {
+                                return null;
+                            }
+                            message.setClientSendTime(clientSendTime);
+                        } else if (value != JsonToken.VALUE_NULL) {
+                            return null;
+                        }
+                        break;
+                    case "userId":
+                        if (value != JsonToken.VALUE_NUMBER_INT
+                                || parser.getNumberType() != JsonParser.NumberType.INT) {
+                            return null;
+                        }
+                        int userId = parser.getIntValue();
+                        if (!MessageValidator.isValidUserId(userId)) {
+                            return null;
+                        }
+                        message.setUserId(userId);
+                        break;
+                    case "username":
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        String username = parser.getText();
+                        if (!MessageValidator.isValidUsername(username)) {
+                            return null;
+                        }
+                        message.setUsername(username);
+                        break;
+                    case "message":
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        String text = parser.getText();
+                        if (!MessageValidator.isValidMessage(text)) {
+                            return null;
+                        }
+                        message.setMessage(text);
+                        break;
+                    case "timestamp":
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        Instant timestamp = parseInstant(parser.getText());
+                        if (timestamp == null) {
+                            return null;
+                        }
+                        message.setTimestamp(timestamp);
+                        break;
+                    case "messageType":
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        MessageType type = parseMessageType(parser.getText());
+                        if (type == null) {
+                            return null;
+                        }
+                        message.setMessageType(type);
+                        break;
+                    default:
+                        // Unknown properties are ignored, as in the data-binding path
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                return null;
+            }
+            // All required fields must have been present
+            if (message.getUserId() == null || message.getUsername() == null || message.getMessage() == null
+                    || message.getTimestamp() == null || message.getMessageType() == null) {
+                return null;
+            }
+            return message;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse an ISO-8601 instant. The canonical UTC form {@code yyyy-MM-ddTHH:mm:ss[.fraction]Z} is decoded by
+     * hand (DateTimeFormatter allocates heavily); anything else goes through {@link Instant#parse}.
+     */
+    static Instant parseInstant(String text) {
+        Instant instant = parseUtcInstant(text);
+        if (instant != null) {
+            return instant;
+        }
+        try {
+            return Instant.parse(text);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static Instant parseUtcInstant(String text) {
+        int length = text.length();
+        if (length < 20 || length > 30 || text.charAt(length - 1) != 'Z'
+                || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        int nanos = 0;
+        if (length > 20) {
+            // ".d" to ".ddddddddd" before the Z
+            int fractionDigits = length - 21;
+            if (text.charAt(19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                return null;
+            }
+            nanos = digits(text, 20, fractionDigits);
+            if (nanos < 0) {
+                return null;
+            }
+            for (int i = fractionDigits; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+        long epochSecond = epochDay(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+        return Instant.ofEpochSecond(epochSecond, nanos);
+    }
+
+    // Non-negative decimal value of text[start, start + count), or -1 if any character is not a digit
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (same algorithm as LocalDate.toEpochDay)
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            if (!leap) {
+                total--;
+            }
+        }
+        return total - 719_528L;
+    }
+
+    private static MessageType parseMessageType(String text) {
+        // Exact names avoid the trim/upper-case allocation of MessageType.fromValue
+        switch (text) {
+            case "TEXT":
+                return MessageType.TEXT;
+            case "JOIN":
+                return MessageType.JOIN;
+            case "LEAVE":
+                return MessageType.LEAVE;
+            default:
+                return MessageType.fromValue(text);
+        }
+    }
+}
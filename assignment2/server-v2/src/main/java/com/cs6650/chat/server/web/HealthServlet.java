@@ -1,6 +1,12 @@
 package com.cs6650.chat.server.web;
 
 import com.cs6650.chat.server.config.ObjectMapperProvider;
+import com.cs6650.chat.server.queue.InMemoryMessageBus;
+import com.cs6650.chat.server.queue.MessageBus;
+import com.cs6650.chat.server.queue.MessagePublisher;
+import com.cs6650.chat.server.ws.ChatWebSocketEndpoint;
+import com.cs6650.chat.server.ws.DeflateConfigurator;
+import com.cs6650.chat.server.ws.SessionOutbound;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -28,6 +34,34 @@ public class HealthServlet extends HttpServlet {
         body.put("status", "UP");
         body.put("timestamp", Instant.now().toString());
 
+        MessageBus bus = ChatWebSocketEndpoint.getMessageBus();
+        body.put("messageBus", bus.getName());
+        if (bus instanceof InMemoryMessageBus) {
+            body.put("bus", ((InMemoryMessageBus) bus).getStats());
+        }
+        if (ChatWebSocketEndpoint.getRoomBroadcaster() != null) {
+            body.put("broadcast", ChatWebSocketEndpoint.getRoomBroadcaster().getStats());
+        }
+
+        MessagePublisher publisher = ChatWebSocketEndpoint.getMessagePublisher();
+        if (publisher != null) {
+            body.put("channelPool", publisher.getChannelPool().getStats());
+            body.put("connections", publisher.getChannelPool().getConnectionStats());
+            body.put("flowControl", publisher.getChannelPool().getFlowControlStats());
+            if (publisher.getSpoolDrainer() != null) {
+                body.put("spool", publisher.getSpoolDrainer().getStats());
+            }
+        }
+
+        body.put("admission", ChatWebSocketEndpoint.getAdmissionController().getStats());
+        body.put("ingest", ChatWebSocketEndpoint.getIngestLimiter().getStats());
+        if (ChatWebSocketEndpoint.getDuplicateFilter() != null) {
+            body.put("dedup", ChatWebSocketEndpoint.getDuplicateFilter().getStats());
+        }
+        body.put("outbound", SessionOutbound.getStats());
+        body.put("deflate", DeflateConfigurator.getStats());
+        body.put("execution", ChatWebSocketEndpoint.getMessageExecutor().getStats());
+
         OBJECT_MAPPER.writeValue(resp.getWriter(), body);
     }
 }
@@ -0,0 +1,190 @@
+package com.cs6650.chat.server.web;
+
+import com.cs6650.chat.server.metrics.IngestMetrics;
+import com.cs6650.chat.server.metrics.StageTimer;
+import com.cs6650.chat.server.metrics.StageTimer.StageSnapshot;
+import com.cs6650.chat.server.metrics.StageTimer.Summary;
+import com.cs6650.chat.server.queue.ChannelPool;
+import com.cs6650.chat.server.queue.ChannelPool.ConnectionStats;
+import com.cs6650.chat.server.queue.ChannelPool.FlowControlStats;
+import com.cs6650.chat.server.queue.InMemoryMessageBus;
+import com.cs6650.chat.server.queue.InMemoryMessageBus.MemoryBusStats;
+import com.cs6650.chat.server.queue.MessagePublisher;
+import com.cs6650.chat.server.ws.AdmissionController.AdmissionStats;
+import com.cs6650.chat.server.ws.ChatWebSocketEndpoint;
+import com.cs6650.chat.server.ws.DuplicateFilter;
+import com.cs6650.chat.server.ws.DuplicateFilter.DedupStats;
+import com.cs6650.chat.server.ws.IngestLimiter.IngestStats;
+import com.cs6650.chat.server.ws.SessionOutbound;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prometheus text-format endpoint with per-stage ingest latency and publish-path gauges.
+ * <p>
+ * Each stage is exported twice: {@code chat_stage_latency_seconds} is a summary over the whole run, and
+ * {@code chat_stage_interval_latency_seconds} holds the percentiles of the samples recorded since the
+ * previous scrape, so a spike shows up in the next scrape instead of being averaged away. The interval
+ * view assumes a single scraper.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setContentType(CONTENT_TYPE);
+
+        List<StageSnapshot> snapshots = new ArrayList<>();
+        for (StageTimer timer : IngestMetrics.getTimers()) {
+            snapshots.add(timer.snapshot());
+        }
+
+        StringBuilder out = new StringBuilder(8192);
+        writeStages(out, snapshots);
+        writeGauges(out);
+        resp.getWriter().write(out.toString());
+    }
+
+    private void writeStages(StringBuilder out, List<StageSnapshot> snapshots) {
+        header(out, "chat_stage_latency_seconds", "summary", "Ingest stage latency since start.");
+        for (StageSnapshot snapshot : snapshots) {
+            Summary summary = snapshot.cumulative;
+            quantiles(out, "chat_stage_latency_seconds", snapshot.stage, summary);
+            sample(out, "chat_stage_latency_seconds_sum", snapshot.stage, seconds(summary.sumNanos));
+            sample(out, "chat_stage_latency_seconds_count", snapshot.stage, Long.toString(summary.count));
+        }
+        header(out, "chat_stage_latency_max_seconds", "gauge", "Largest stage latency since start.");
+        for (StageSnapshot snapshot : snapshots) {
+            sample(out, "chat_stage_latency_max_seconds", snapshot.stage, seconds(snapshot.cumulative.max));
+        }
+
+        header(out, "chat_stage_interval_latency_seconds", "gauge",
+                "Ingest stage latency percentiles since the previous scrape.");
+        for (StageSnapshot snapshot : snapshots) {
+            quantiles(out, "chat_stage_interval_latency_seconds", snapshot.stage, snapshot.interval);
+        }
+        header(out, "chat_stage_interval_max_seconds", "gauge", "Largest stage latency since the previous scrape.");
+        for (StageSnapshot snapshot : snapshots) {
+            sample(out, "chat_stage_interval_max_seconds", snapshot.stage, seconds(snapshot.interval.max));
+        }
+        header(out, "chat_stage_interval_count", "gauge", "Stage samples recorded since the previous scrape.");
+        for (StageSnapshot snapshot : snapshots) {
+            sample(out, "chat_stage_interval_count", snapshot.stage, Long.toString(snapshot.interval.count));
+        }
+    }
+
+    private void writeGauges(StringBuilder out) {
+        MessagePublisher publisher = ChatWebSocketEndpoint.getMessagePublisher();
+        if (publisher != null) {
+            ChannelPool pool = publisher.getChannelPool();
+            gauge(out, "chat_channel_pool_size", "Publisher channels.", pool.getPoolSize());
+            gauge(out, "chat_channel_pool_available", "Publisher channels not borrowed.", pool.getAvailableChannels());
+            gauge(out, "chat_publish_outstanding_confirms", "Async publishes awaiting a broker confirm.",
+                    pool.getOutstandingConfirms());
+            FlowControlStats flow = pool.getFlowControlStats();
+            gauge(out, "chat_broker_blocked_connections", "Publisher connections the broker is blocking.",
+                    flow.blockedConnections);
+            header(out, "chat_broker_blocked_seconds_total", "counter",
+                    "Time publisher connections spent blocked by broker alarms.");
+            out.append("chat_broker_blocked_seconds_total ").append(flow.blockedMillis / 1000.0).append('\n');
+            header(out, "chat_broker_blocked_rejections_total", "counter",
+                    "Publishes refused without trying because the broker was blocking.");
+            out.append("chat_broker_blocked_rejections_total ").append(flow.rejections).append('\n');
+            List<ConnectionStats> connections = pool.getConnectionStats();
+            header(out, "chat_publisher_messages_total", "counter", "Messages published, per AMQP connection.");
+            for (ConnectionStats connection : connections) {
+                out.append("chat_publisher_messages_total{connection=\"").append(connection.connection).append("\"} ")
+                        .append(connection.messagesPublished).append('\n');
+            }
+            header(out, "chat_publisher_bytes_total", "counter", "Message bytes published, per AMQP connection.");
+            for (ConnectionStats connection : connections) {
+                out.append("chat_publisher_bytes_total{connection=\"").append(connection.connection).append("\"} ")
+                        .append(connection.bytesPublished).append('\n');
+            }
+            if (publisher.getSpoolDrainer() != null) {
+                gauge(out, "chat_spool_depth", "Messages waiting in the local spool.",
+                        publisher.getSpoolDrainer().getDepth());
+                header(out, "chat_spool_drained_total", "counter", "Spooled messages republished to the broker.");
+                out.append("chat_spool_drained_total ").append(publisher.getSpoolDrainer().getStats().drained)
+                        .append('\n');
+            }
+        }
+        if (ChatWebSocketEndpoint.getMessageBus() instanceof InMemoryMessageBus) {
+            MemoryBusStats bus = ((InMemoryMessageBus) ChatWebSocketEndpoint.getMessageBus()).getStats();
+            gauge(out, "chat_bus_depth", "Messages waiting in the in-memory room queues.", bus.depth);
+            gauge(out, "chat_bus_unacked", "In-memory deliveries not yet acked.", bus.unacked);
+            header(out, "chat_bus_rejected_total", "counter", "Publishes refused because a room queue was full.");
+            out.append("chat_bus_rejected_total ").append(bus.rejected).append('\n');
+        }
+
+        IngestStats ingest = ChatWebSocketEndpoint.getIngestLimiter().getStats();
+        gauge(out, "chat_ingest_in_flight", "Messages between acceptance and publish completion.", ingest.inFlight);
+        header(out, "chat_ingest_accepted_total", "counter", "Messages accepted for publishing.");
+        out.append("chat_ingest_accepted_total ").append(ingest.accepted).append('\n');
+        header(out, "chat_ingest_rejected_total", "counter", "Messages answered with a retry response.");
+        out.append("chat_ingest_rejected_total{reason=\"session\"} ").append(ingest.rejectedSession).append('\n');
+        out.append("chat_ingest_rejected_total{reason=\"node\"} ").append(ingest.rejectedNode).append('\n');
+
+        AdmissionStats admission = ChatWebSocketEndpoint.getAdmissionController().getStats();
+        header(out, "chat_admission_throttled_total", "counter", "Messages rejected by a rate limit.");
+        out.append("chat_admission_throttled_total{scope=\"user\"} ").append(admission.throttledUser).append('\n');
+        out.append("chat_admission_throttled_total{scope=\"room\"} ").append(admission.throttledRoom).append('\n');
+        header(out, "chat_admission_keys_refused_total", "counter",
+                "New users or rooms throttled because the limiter's key map was full.");
+        out.append("chat_admission_keys_refused_total ").append(admission.keysRefused).append('\n');
+
+        DuplicateFilter dedup = ChatWebSocketEndpoint.getDuplicateFilter();
+        if (dedup != null) {
+            DedupStats stats = dedup.getStats();
+            header(out, "chat_dedup_suppressed_total", "counter", "Duplicate messages re-acked without publishing.");
+            out.append("chat_dedup_suppressed_total ").append(stats.suppressed).append('\n');
+            header(out, "chat_dedup_checked_total", "counter", "Messages checked against the duplicate filter.");
+            out.append("chat_dedup_checked_total ").append(stats.checked).append('\n');
+            gauge(out, "chat_dedup_memory_bytes", "Memory held by the duplicate filter tables.", stats.memoryBytes);
+            gauge(out, "chat_dedup_entries", "MessageIds remembered across both generations.",
+                    stats.currentEntries + stats.previousEntries);
+        }
+
+        gauge(out, "chat_outbound_backlog", "Replies queued for sending across all sessions.",
+                SessionOutbound.getStats().totalBacklog);
+        gauge(out, "chat_execution_queued", "Frames waiting in per-session execution lanes.",
+                ChatWebSocketEndpoint.getMessageExecutor().getStats().queued);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void quantiles(StringBuilder out, String name, String stage, Summary summary) {
+        quantile(out, name, stage, "0.5", summary.p50);
+        quantile(out, name, stage, "0.9", summary.p90);
+        quantile(out, name, stage, "0.99", summary.p99);
+        quantile(out, name, stage, "0.999", summary.p999);
+    }
+
+    private static void quantile(StringBuilder out, String name, String stage, String quantile, long nanos) {
+        out.append(name).append("{stage=\"").append(stage).append("\",quantile=\"").append(quantile).append("\"} ")
+                .append(seconds(nanos)).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String stage, String value) {
+        out.append(name).append("{stage=\"").append(stage).append("\"} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+}
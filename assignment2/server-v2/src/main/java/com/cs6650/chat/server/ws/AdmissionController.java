@@ -0,0 +1,144 @@
+package com.cs6650.chat.server.ws;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user and per-room rate limits applied before a message is published.
+ * Each tier is a {@link RateLimiter} configured from the environment; a rate of 0 disables the tier.
+ * <ul>
+ *   <li>{@code RATE_LIMIT_USER_PER_SEC} / {@code RATE_LIMIT_USER_BURST} – messages per second and burst per userId.</li>
+ *   <li>{@code RATE_LIMIT_ROOM_PER_SEC} / {@code RATE_LIMIT_ROOM_BURST} – messages per second and burst per room.</li>
+ * </ul>
+ * The user tier is checked first, so a flooding client is throttled before it can use up its room's budget; a
+ * message the room tier then throttles gets its user token back, so it does not count against the user either.
+ */
+public class AdmissionController {
+
+    private static final int MAX_USER_KEYS = 200_000;
+    private static final int MAX_ROOM_KEYS = 10_000;
+
+    private final RateLimiter<Integer> userLimiter;
+    private final RateLimiter<String> roomLimiter;
+
+    // Statistics; LongAdder keeps the counters off a shared cache line
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder throttledUser = new LongAdder();
+    private final LongAdder throttledRoom = new LongAdder();
+
+    public AdmissionController(double userPerSecond, int userBurst, double roomPerSecond, int roomBurst) {
+        this.userLimiter = userPerSecond > 0 ? new RateLimiter<>(userPerSecond, userBurst, MAX_USER_KEYS) : null;
+        this.roomLimiter = roomPerSecond > 0 ? new RateLimiter<>(roomPerSecond, roomBurst, MAX_ROOM_KEYS) : null;
+    }
+
+    public static AdmissionController fromEnvironment() {
+        return new AdmissionController(
+                Double.parseDouble(System.getenv().getOrDefault("RATE_LIMIT_USER_PER_SEC", "0")),
+                Integer.parseInt(System.getenv().getOrDefault("RATE_LIMIT_USER_BURST", "20")),
+                Double.parseDouble(System.getenv().getOrDefault("RATE_LIMIT_ROOM_PER_SEC", "0")),
+                Integer.parseInt(System.getenv().getOrDefault("RATE_LIMIT_ROOM_BURST", "500")));
+    }
+
+    /**
+     * Admit or throttle one message.
+     *
+     * @return null when admitted, otherwise a {@link Throttle} naming the tier and the suggested back-off
+     */
+    public Throttle tryAdmit(int userId, String roomId) {
+        if (userLimiter == null && roomLimiter == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (userLimiter != null) {
+            long waitNanos = userLimiter.tryAcquire(userId, now);
+            if (waitNanos > 0) {
+                throttledUser.increment();
+                return new Throttle("user", waitNanos);
+            }
+        }
+        if (roomLimiter != null && roomId != null) {
+            long waitNanos = roomLimiter.tryAcquire(roomId, now);
+            if (waitNanos > 0) {
+                if (userLimiter != null) {
+                    userLimiter.release(userId);
+                }
+                throttledRoom.increment();
+                return new Throttle("room", waitNanos);
+            }
+        }
+        admitted.increment();
+        return null;
+    }
+
+    /**
+     * Get admission statistics.
+     */
+    public AdmissionStats getStats() {
+        return new AdmissionStats(
+                userLimiter != null,
+                roomLimiter != null,
+                admitted.sum(),
+                throttledUser.sum(),
+                throttledRoom.sum(),
+                userLimiter != null ? userLimiter.getTrackedKeys() : 0,
+                roomLimiter != null ? roomLimiter.getTrackedKeys() : 0,
+                (userLimiter != null ? userLimiter.getKeysRefused() : 0)
+                        + (roomLimiter != null ? roomLimiter.getKeysRefused() : 0)
+        );
+    }
+
+    /**
+     * Outcome of a throttled message.
+     */
+    public static final class Throttle {
+        private final String scope;
+        private final long retryAfterMs;
+
+        Throttle(String scope, long waitNanos) {
+            this.scope = scope;
+            // Round up so the client does not come back a moment too early
+            this.retryAfterMs = Math.max(1, (waitNanos + 999_999) / 1_000_000);
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+    }
+
+    /**
+     * Admission statistics data class.
+     */
+    public static class AdmissionStats {
+        public final boolean userLimitEnabled;
+        public final boolean roomLimitEnabled;
+        public final long admitted;
+        public final long throttledUser;
+        public final long throttledRoom;
+        public final int trackedUsers;
+        public final int trackedRooms;
+        public final long keysRefused;
+
+        public AdmissionStats(boolean userLimitEnabled, boolean roomLimitEnabled, long admitted,
+                              long throttledUser, long throttledRoom, int trackedUsers, int trackedRooms,
+                              long keysRefused) {
+            this.userLimitEnabled = userLimitEnabled;
+            this.roomLimitEnabled = roomLimitEnabled;
+            this.admitted = admitted;
+            this.throttledUser = throttledUser;
+            this.throttledRoom = throttledRoom;
+            this.trackedUsers = trackedUsers;
+            this.trackedRooms = trackedRooms;
+            this.keysRefused = keysRefused;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("AdmissionStats[admitted=%d, throttledUser=%d, throttledRoom=%d, users=%d, rooms=%d, "
+                            + "keysRefused=%d]",
+                    admitted, throttledUser, throttledRoom, trackedUsers, trackedRooms, keysRefused);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.cs6650.chat.server.ws;
+
+import javax.websocket.CloseReason;
+import javax.websocket.OnClose;
+import javax.websocket.OnMessage;
+import javax.websocket.OnOpen;
+import javax.websocket.Session;
+import javax.websocket.server.PathParam;
+import javax.websocket.server.ServerEndpoint;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receive-only endpoint for room broadcasts when the server runs with the in-memory bus
+ * ({@code MESSAGE_BUS=memory}); same path and message format as the consumer's {@code /broadcast/{roomId}}.
+ * With RabbitMQ connections are refused, since the consumer application serves broadcasts.
+ */
+@ServerEndpoint(value = "/broadcast/{roomId}", configurator = DeflateConfigurator.Broadcast.class)
+public class BroadcastEndpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BroadcastEndpoint.class);
+
+    @OnOpen
+    public void onOpen(Session session, @PathParam("roomId") String roomId) throws IOException {
+        RoomBroadcaster broadcaster = ChatWebSocketEndpoint.getRoomBroadcaster();
+        if (broadcaster == null) {
+            session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT,
+                    "Broadcasts are served by the consumer"));
+            return;
+        }
+        session.getUserProperties().put("roomId", roomId);
+        SessionOutbound.register(session);
+        broadcaster.addSession(roomId, session);
+        LOGGER.info("Broadcast session {} joined room {}", session.getId(), roomId);
+    }
+
+    @OnMessage
+    public void onMessage(Session session, String message) {
+        // Clients only receive messages on this endpoint
+        LOGGER.debug("Ignoring message on broadcast endpoint from session {}", session.getId());
+    }
+
+    @OnClose
+    public void onClose(Session session) {
+        RoomBroadcaster broadcaster = ChatWebSocketEndpoint.getRoomBroadcaster();
+        if (broadcaster != null) {
+            broadcaster.removeSession((String) session.getUserProperties().get("roomId"), session);
+        }
+        SessionOutbound.of(session).discard();
+        LOGGER.info("Broadcast session {} closed", session.getId());
+    }
+}
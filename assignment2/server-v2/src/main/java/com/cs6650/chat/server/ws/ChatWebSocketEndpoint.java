@@ -2,10 +2,16 @@ package com.cs6650.chat.server.ws;
 
 import com.cs6650.chat.server.config.ObjectMapperProvider;
 import com.cs6650.chat.server.handler.EchoMessageHandler;
+import com.cs6650.chat.server.metrics.IngestMetrics;
 import com.cs6650.chat.server.model.ChatMessage;
+import com.cs6650.chat.server.queue.BrokerBlockedException;
+import com.cs6650.chat.server.queue.InMemoryMessageBus;
+import com.cs6650.chat.server.queue.MessageBus;
 import com.cs6650.chat.server.queue.MessagePublisher;
+import com.cs6650.chat.server.queue.RabbitMessageBus;
 import com.cs6650.chat.server.validation.MessageValidator;
 import com.cs6650.chat.server.validation.MessageValidator.ValidationResult;
+import com.cs6650.chat.server.validation.StreamingMessageParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javax.websocket.EndpointConfig;
@@ -18,53 +24,143 @@ import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * WebSocket endpoint that validates messages and publishes them to RabbitMQ.
+ * WebSocket endpoint that validates messages and publishes them to the {@link MessageBus} (RabbitMQ by default).
  * <p>
  * Processing flow (Assignment 2):
  * <ol>
- *   <li>{@link #onOpen(Session, EndpointConfig, String)} – register the session and remember its room.</li>
- *   <li>{@link #onMessage(Session, String)} – parse JSON to {@link ChatMessage}, validate it, and publish to RabbitMQ.</li>
- *   <li>{@link #onClose(Session)} – remove the session from the active list.</li>
+ *   <li>{@link #onOpen(Session, EndpointConfig, String)} – register the session, remember its room and its ack mode.</li>
+ *   <li>{@link #onMessage(Session, String)} – parse JSON to {@link ChatMessage}, validate it, and publish it to the bus.
+ *       Retries of an already published messageId are acked without publishing (with {@code DEDUP_ENABLED}).
+ *       Messages over a rate limit get a {@code throttled} response, messages beyond the in-flight limits
+ *       or refused while the broker blocks publishing (and not spooled) a {@code retry} response.
+ *       With {@code EXECUTION_MODE=virtual}
+ *       this runs on the session's {@link MessageExecutor} lane instead of the container thread.</li>
+ *   <li>{@link #onClose(Session)} – remove the session from the active list and drop unsent replies.</li>
  *   <li>{@link #onError(Session, Throwable)} – log unexpected errors and attempt to notify the client.</li>
  * </ol>
  * Messages are published to RabbitMQ and consumed by a separate consumer application for broadcasting.
+ * With {@code MESSAGE_BUS=memory} they stay in this JVM and {@link RoomBroadcaster} serves {@link BroadcastEndpoint}.
+ * Replies go through the session's {@link SessionOutbound} queue and never block the calling thread.
  */
-@ServerEndpoint("/chat/{roomId}")
+@ServerEndpoint(value = "/chat/{roomId}", configurator = DeflateConfigurator.Ingest.class)
 public class ChatWebSocketEndpoint {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ChatWebSocketEndpoint.class);
 
     private static final ObjectMapper OBJECT_MAPPER = ObjectMapperProvider.get();
     private static final MessageValidator VALIDATOR = new MessageValidator();
+    private static final StreamingMessageParser FAST_PARSER = new StreamingMessageParser(OBJECT_MAPPER.getFactory());
     private static final EchoMessageHandler HANDLER = new EchoMessageHandler(OBJECT_MAPPER);
 
     // Tracks active sessions (keyed by session ID) mainly for debugging/future broadcast usage.
     private static final Map<String, Session> ACTIVE_SESSIONS = new ConcurrentHashMap<>();
 
-    // Message publisher for RabbitMQ (singleton)
-    private static MessagePublisher messagePublisher;
+    // In-flight limits on the ingest path; over the limit clients are told to back off
+    private static final IngestLimiter INGEST_LIMITER = new IngestLimiter(
+            Integer.parseInt(System.getenv().getOrDefault("INGEST_MAX_INFLIGHT_PER_SESSION", "32")),
+            Integer.parseInt(System.getenv().getOrDefault("INGEST_MAX_INFLIGHT", "1000")));
+    private static final long RETRY_AFTER_MS = Long.parseLong(
+            System.getenv().getOrDefault("INGEST_RETRY_AFTER_MS", "100"));
+    // Broker alarms last seconds, so clients shed while the broker blocks publishing wait longer
+    private static final long BROKER_BLOCKED_RETRY_AFTER_MS = Long.parseLong(
+            System.getenv().getOrDefault("BROKER_BLOCKED_RETRY_AFTER_MS", "1000"));
+
+    // Per-user / per-room token buckets (RATE_LIMIT_*); disabled unless a rate is set
+    private static final AdmissionController ADMISSION = AdmissionController.fromEnvironment();
+
+    // Recently published messageIds (DEDUP_*); null when disabled
+    private static final DuplicateFilter DEDUP = DuplicateFilter.fromEnvironment();
+
+    // Container threads or per-session lanes on virtual threads (EXECUTION_MODE)
+    private static final MessageExecutor EXECUTOR = MessageExecutor.fromEnvironment();
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    // Message bus selected by MESSAGE_BUS (singleton); the in-process bus also gets an in-process broadcaster
+    private static MessageBus messageBus;
+    private static RoomBroadcaster roomBroadcaster;
 
     static {
         try {
-            messagePublisher = new MessagePublisher();
-            LOGGER.info("MessagePublisher initialized successfully");
+            messageBus = MessageBus.fromEnvironment();
+            if (messageBus instanceof InMemoryMessageBus) {
+                roomBroadcaster = new RoomBroadcaster();
+                roomBroadcaster.start(messageBus);
+            }
+            LOGGER.info("Message bus ({}) initialized successfully", messageBus.getName());
         } catch (Exception e) {
-            LOGGER.error("Failed to initialize MessagePublisher", e);
-            throw new RuntimeException("Failed to initialize MessagePublisher", e);
+            LOGGER.error("Failed to initialize message bus", e);
+            throw new RuntimeException("Failed to initialize message bus", e);
         }
     }
 
+    /**
+     * Shared message bus, exposed so monitoring endpoints can report its state.
+     */
+    public static MessageBus getMessageBus() {
+        return messageBus;
+    }
+
+    /**
+     * RabbitMQ publisher behind the bus, or null when the bus is in memory.
+     */
+    public static MessagePublisher getMessagePublisher() {
+        return messageBus instanceof RabbitMessageBus ? ((RabbitMessageBus) messageBus).getPublisher() : null;
+    }
+
+    /**
+     * In-process broadcaster, or null when a consumer application broadcasts.
+     */
+    public static RoomBroadcaster getRoomBroadcaster() {
+        return roomBroadcaster;
+    }
+
+    /**
+     * Shared ingest limiter, exposed so monitoring endpoints can report accepted/rejected counts.
+     */
+    public static IngestLimiter getIngestLimiter() {
+        return INGEST_LIMITER;
+    }
+
+    /**
+     * Shared admission controller, exposed so monitoring endpoints can report throttled traffic.
+     */
+    public static AdmissionController getAdmissionController() {
+        return ADMISSION;
+    }
+
+    /**
+     * Shared duplicate filter, or null when disabled.
+     */
+    public static DuplicateFilter getDuplicateFilter() {
+        return DEDUP;
+    }
+
+    /**
+     * Shared message executor, exposed so monitoring endpoints can report lane activity.
+     */
+    public static MessageExecutor getMessageExecutor() {
+        return EXECUTOR;
+    }
+
     @OnOpen
     public void onOpen(Session session, EndpointConfig config, @PathParam("roomId") String roomId) {
         // Persist the room so future events (close/error) know which room the session belongs to.
         session.getUserProperties().put("roomId", roomId);
+        // Full echo of the original message is opt-in per connection (?echo=full); default is the minimal ack
+        List<String> echo = session.getRequestParameterMap().get("echo");
+        session.getUserProperties().put("echoFull", echo != null && echo.contains("full"));
         ACTIVE_SESSIONS.put(session.getId(), session);
+        INGEST_LIMITER.register(session);
+        SessionOutbound.register(session);
         LOGGER.info("Session {} joined room {}", session.getId(), roomId);
     }
 
@@ -72,32 +168,143 @@ public class ChatWebSocketEndpoint {
     public void onMessage(Session session, String payload) {
         // Capture receive time immediately for accurate server-side latency.
         Instant receivedAt = Instant.now();
+        long receivedNanos = System.nanoTime();
+        if (EXECUTOR.isInline()) {
+            handleMessage(session, payload, receivedAt, receivedNanos);
+            return;
+        }
+        // Virtual mode: the session's lane runs the whole sequence, waiting for the ack before the next frame
+        boolean queued = EXECUTOR.execute(session,
+                () -> handleMessage(session, payload, receivedAt, receivedNanos).join());
+        if (!queued) {
+            sendText(session, HANDLER.buildRetryResponse(new ChatMessage(), RETRY_AFTER_MS, "queue").toString());
+            LOGGER.debug("Execution lane full, asked session {} to retry", session.getId());
+        }
+    }
+
+    /**
+     * Parse, validate, publish and ack one frame.
+     *
+     * @return a future that completes once the client has been answered; it never completes exceptionally
+     */
+    private CompletableFuture<Void> handleMessage(Session session, String payload, Instant receivedAt,
+                                                  long receivedNanos) {
         String roomId = (String) session.getUserProperties().get("roomId");
 
         try {
-            ChatMessage message = OBJECT_MAPPER.readValue(payload, ChatMessage.class);
-            ValidationResult validationResult = VALIDATOR.validate(message);
-            if (!validationResult.isValid()) {
-                session.getBasicRemote().sendText(HANDLER.buildValidationErrorResponse(validationResult).toString());
-                LOGGER.debug("Validation failed for session {}: {}", session.getId(), validationResult.getErrors());
-                return;
+            ChatMessage message = parseAndValidate(session, payload);
+            if (message == null) {
+                return DONE;
             }
 
-            // Publish message to RabbitMQ instead of echoing back
-            String clientIp = getClientIp(session);
-            messagePublisher.publishMessage(message, roomId, clientIp);
+            // A retry of a message that was already published is acked again but not republished
+            if (DEDUP != null && DEDUP.isDuplicate(message.getMessageId())) {
+                sendAck(session, message, receivedAt);
+                LOGGER.debug("Re-acked duplicate {} from session {}", message.getMessageId(), session.getId());
+                return DONE;
+            }
 
-            // Send acknowledgment back to client
-            session.getBasicRemote().sendText(HANDLER.buildSuccessResponse(message, receivedAt).toString());
+            // Per-user and per-room rate limits, before the message takes an in-flight permit
+            AdmissionController.Throttle throttle = ADMISSION.tryAdmit(message.getUserId(), roomId);
+            if (throttle != null) {
+                sendText(session, HANDLER.buildThrottledResponse(message, throttle.getRetryAfterMs(),
+                        throttle.getScope()).toString());
+                LOGGER.debug("Throttled session {} ({} limit)", session.getId(), throttle.getScope());
+                return DONE;
+            }
+
+            // Shed load before publishing rather than queueing behind a slow broker
+            String rejectedBy = INGEST_LIMITER.tryAcquire(session);
+            if (rejectedBy != null) {
+                sendText(session, HANDLER.buildRetryResponse(message, RETRY_AFTER_MS, rejectedBy).toString());
+                LOGGER.debug("Ingest limit ({}) reached, asked session {} to retry", rejectedBy, session.getId());
+                return DONE;
+            }
 
-            LOGGER.debug("Message published to room {} from session {}", roomId, session.getId());
+            // Publish message to the bus instead of echoing back; the client is acked once the bus accepts it
+            String clientIp = getClientIp(session);
+            CompletableFuture<Void> published;
+            try {
+                published = messageBus.publish(message, roomId, clientIp);
+            } catch (RuntimeException ex) {
+                published = CompletableFuture.failedFuture(ex);
+            }
+            return published.handle((ignored, error) -> {
+                INGEST_LIMITER.release(session);
+                onPublishConfirmed(session, message, receivedAt, receivedNanos, error);
+                return null;
+            });
         } catch (JsonProcessingException ex) {
             LOGGER.warn("Failed to parse message from session {}", session.getId(), ex);
             sendJsonError(session, "Invalid JSON payload.");
         } catch (IOException ex) {
-            LOGGER.error("Failed to send response to session {}", session.getId(), ex);
+            LOGGER.warn("Failed to read message from session {}", session.getId(), ex);
             closeSilently(session);
         }
+        return DONE;
+    }
+
+    /**
+     * Parse and validate a frame. The streaming fast path handles valid messages in one pass;
+     * anything else goes through full data binding and {@link MessageValidator} to collect the errors.
+     *
+     * @return the valid message, or null after the validation errors have been sent to the client
+     */
+    private ChatMessage parseAndValidate(Session session, String payload) throws IOException {
+        long start = System.nanoTime();
+        ChatMessage message = FAST_PARSER.parseValid(payload);
+        if (message != null) {
+            IngestMetrics.PARSE.recordSince(start);
+            return message;
+        }
+        message = OBJECT_MAPPER.readValue(payload, ChatMessage.class);
+        long parsed = System.nanoTime();
+        IngestMetrics.PARSE.record(parsed - start);
+        ValidationResult validationResult = VALIDATOR.validate(message);
+        IngestMetrics.VALIDATE.recordSince(parsed);
+        if (!validationResult.isValid()) {
+            sendText(session, HANDLER.buildValidationErrorResponse(validationResult).toString());
+            LOGGER.debug("Validation failed for session {}: {}", session.getId(), validationResult.getErrors());
+            return null;
+        }
+        return message;
+    }
+
+    /**
+     * Complete a publish: ack the client on confirm, report an error otherwise.
+     */
+    private void onPublishConfirmed(Session session, ChatMessage message, Instant receivedAt, long receivedNanos,
+                                    Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof BrokerBlockedException) {
+                sendText(session, HANDLER.buildRetryResponse(message, BROKER_BLOCKED_RETRY_AFTER_MS, "broker")
+                        .toString());
+                LOGGER.debug("Broker blocked, asked session {} to retry", session.getId());
+                return;
+            }
+            LOGGER.warn("Publish not confirmed for session {}: {}", session.getId(), error.toString());
+            sendJsonError(session, "Message could not be published.");
+            return;
+        }
+        if (DEDUP != null) {
+            DEDUP.record(message.getMessageId());
+        }
+        sendAck(session, message, receivedAt);
+        IngestMetrics.TOTAL.recordSince(receivedNanos);
+        LOGGER.debug("Message published to room {} from session {}",
+                session.getUserProperties().get("roomId"), session.getId());
+    }
+
+    /**
+     * Send the success response in the session's ack mode.
+     */
+    private void sendAck(Session session, ChatMessage message, Instant receivedAt) {
+        String ack = Boolean.TRUE.equals(session.getUserProperties().get("echoFull"))
+                ? HANDLER.buildSuccessResponse(message, receivedAt).toString()
+                : HANDLER.buildMinimalAck(message, receivedAt);
+        sendText(session, ack);
     }
 
     /**
@@ -119,6 +326,7 @@ public class ChatWebSocketEndpoint {
     @OnClose
     public void onClose(Session session) {
         ACTIVE_SESSIONS.remove(session.getId());
+        SessionOutbound.of(session).discard();
         LOGGER.info("Session {} closed", session.getId());
     }
 
@@ -131,13 +339,16 @@ public class ChatWebSocketEndpoint {
     }
 
     private void sendJsonError(Session session, String message) {
-        try {
-            // Minimal JSON to avoid introducing extra dependencies for simple error reporting.
-            session.getBasicRemote().sendText("{\"status\":\"error\",\"errors\":[\"" + message + "\"]}");
-        } catch (IOException ex) {
-            LOGGER.error("Failed to send error response to session {}", session.getId(), ex);
-            closeSilently(session);
-        }
+        // Minimal JSON to avoid introducing extra dependencies for simple error reporting.
+        sendText(session, "{\"status\":\"error\",\"errors\":[\"" + message + "\"]}");
+    }
+
+    /**
+     * Queue a text frame on the session's outbound queue. Confirm callbacks may reply concurrently with the
+     * container thread; the queue serializes the writes and closes sessions that stop reading.
+     */
+    private void sendText(Session session, String text) {
+        SessionOutbound.of(session).send(text);
     }
 
     private void closeSilently(Session session) {
@@ -0,0 +1,196 @@
+package com.cs6650.chat.server.ws;
+
+import javax.websocket.Extension;
+import javax.websocket.server.ServerEndpointConfig;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * permessage-deflate policy for the WebSocket endpoints, applied when Tomcat negotiates extensions.
+ * <p>
+ * Tomcat compresses every message of a connection that negotiated deflate and has no size threshold, so the
+ * decision is made per endpoint instead: {@code /chat} only sends short acks, which deflate cannot shrink,
+ * and declines compression unless {@code WS_DEFLATE_INGEST=true}; {@code /broadcast} fans larger messages out
+ * and accepts it unless {@code WS_DEFLATE_ENABLED=false}. With {@code WS_DEFLATE_CONTEXT_TAKEOVER=false} the
+ * server adds {@code server_no_context_takeover}, so each message is compressed on its own.
+ * Tomcat does not report compressed sizes or time; only negotiations are counted.
+ */
+public class DeflateConfigurator extends ServerEndpointConfig.Configurator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeflateConfigurator.class);
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private static final boolean INGEST_ENABLED =
+            Boolean.parseBoolean(System.getenv().getOrDefault("WS_DEFLATE_INGEST", "false"));
+    private static final boolean BROADCAST_ENABLED =
+            Boolean.parseBoolean(System.getenv().getOrDefault("WS_DEFLATE_ENABLED", "true"));
+    private static final boolean CONTEXT_TAKEOVER =
+            Boolean.parseBoolean(System.getenv().getOrDefault("WS_DEFLATE_CONTEXT_TAKEOVER", "true"));
+
+    // Statistics
+    private static final AtomicLong ingestNegotiated = new AtomicLong(0);
+    private static final AtomicLong broadcastNegotiated = new AtomicLong(0);
+    private static final AtomicLong declined = new AtomicLong(0);
+
+    private final boolean enabled;
+    private final AtomicLong negotiated;
+
+    protected DeflateConfigurator(boolean enabled, AtomicLong negotiated) {
+        this.enabled = enabled;
+        this.negotiated = negotiated;
+    }
+
+    /**
+     * Configurator for {@code /chat/{roomId}}.
+     */
+    public static class Ingest extends DeflateConfigurator {
+        public Ingest() {
+            super(INGEST_ENABLED, ingestNegotiated);
+        }
+    }
+
+    /**
+     * Configurator for {@code /broadcast/{roomId}}.
+     */
+    public static class Broadcast extends DeflateConfigurator {
+        public Broadcast() {
+            super(BROADCAST_ENABLED, broadcastNegotiated);
+        }
+    }
+
+    @Override
+    public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+        List<Extension> agreed = super.getNegotiatedExtensions(installed, requested);
+        List<Extension> result = new ArrayList<>(agreed.size());
+        boolean deflate = false;
+        boolean refused = false;
+        for (Extension extension : agreed) {
+            if (!PERMESSAGE_DEFLATE.equals(extension.getName())) {
+                result.add(extension);
+            } else if (!enabled) {
+                refused = true;
+            } else {
+                // Every offer is kept so Tomcat can fall back to the next one it supports
+                deflate = true;
+                result.add(CONTEXT_TAKEOVER ? extension : withoutServerContextTakeover(extension));
+            }
+        }
+        if (deflate) {
+            negotiated.incrementAndGet();
+            LOGGER.debug("Negotiated {} (contextTakeover={})", PERMESSAGE_DEFLATE, CONTEXT_TAKEOVER);
+        } else if (refused) {
+            declined.incrementAndGet();
+        }
+        return result;
+    }
+
+    private static Extension withoutServerContextTakeover(Extension offer) {
+        List<Extension.Parameter> parameters = new ArrayList<>(offer.getParameters());
+        boolean present = false;
+        for (Extension.Parameter parameter : parameters) {
+            present |= "server_no_context_takeover".equals(parameter.getName());
+        }
+        if (!present) {
+            parameters.add(new NamedParameter("server_no_context_takeover", null));
+        }
+        List<Extension.Parameter> frozen = Collections.unmodifiableList(parameters);
+        return new Extension() {
+            @Override
+            public String getName() {
+                return offer.getName();
+            }
+
+            @Override
+            public List<Parameter> getParameters() {
+                return frozen;
+            }
+        };
+    }
+
+    private static final class NamedParameter implements Extension.Parameter {
+        private final String name;
+        private final String value;
+
+        NamedParameter(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Get compression negotiation statistics.
+     */
+    public static DeflateStats getStats() {
+        return new DeflateStats(INGEST_ENABLED, BROADCAST_ENABLED, CONTEXT_TAKEOVER,
+                ingestNegotiated.get(), broadcastNegotiated.get(), declined.get());
+    }
+
+    /**
+     * Compression negotiation statistics data class.
+     */
+    public static class DeflateStats {
+        public final boolean ingestEnabled;
+        public final boolean broadcastEnabled;
+        public final boolean contextTakeover;
+        public final long ingestNegotiated;
+        public final long broadcastNegotiated;
+        public final long declined;
+
+        public DeflateStats(boolean ingestEnabled, boolean broadcastEnabled, boolean contextTakeover,
+                            long ingestNegotiated, long broadcastNegotiated, long declined) {
+            this.ingestEnabled = ingestEnabled;
+            this.broadcastEnabled = broadcastEnabled;
+            this.contextTakeover = contextTakeover;
+            this.ingestNegotiated = ingestNegotiated;
+            this.broadcastNegotiated = broadcastNegotiated;
+            this.declined = declined;
+        }
+
+        public boolean isIngestEnabled() {
+            return ingestEnabled;
+        }
+
+        public boolean isBroadcastEnabled() {
+            return broadcastEnabled;
+        }
+
+        public boolean isContextTakeover() {
+            return contextTakeover;
+        }
+
+        public long getIngestNegotiated() {
+            return ingestNegotiated;
+        }
+
+        public long getBroadcastNegotiated() {
+            return broadcastNegotiated;
+        }
+
+        public long getDeclined() {
+            return declined;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DeflateStats[ingest=%b, broadcast=%b, contextTakeover=%b, ingestNegotiated=%d, "
+                            + "broadcastNegotiated=%d, declined=%d]",
+                    ingestEnabled, broadcastEnabled, contextTakeover, ingestNegotiated, broadcastNegotiated,
+                    declined);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.cs6650.chat.server.ws;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time-windowed set of recently published messageIds, used to re-ack client retries without publishing them again.
+ * <p>
+ * Ids are stored as 64-bit fingerprints in two generations of open-addressed {@link AtomicLongArray} tables:
+ * lookups probe both, inserts CAS into the current one, and no lock is taken outside rotation. When the current
+ * generation is older than the window or half full, it becomes the previous one and a fresh table replaces it, so
+ * an id is remembered for one to two windows and memory stays fixed at {@code 2 × capacity × 8} bytes.
+ * <p>
+ * The filter errs towards publishing: a full probe sequence or a rotation race only lets a duplicate through,
+ * which downstream dedup still catches. The one way to drop a message is a 64-bit fingerprint collision,
+ * about 3 in 10<sup>8</sup> with a million ids in the window.
+ */
+public class DuplicateFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateFilter.class);
+
+    private static final int MAX_PROBES = 32;
+
+    private final int capacity;
+    private final long windowNanos;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    // Statistics
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder insertOverflows = new LongAdder();
+    private final AtomicInteger rotations = new AtomicInteger(0);
+
+    /**
+     * @param capacity      slots per generation, rounded up to a power of two
+     * @param windowSeconds age at which the current generation is rotated out
+     */
+    public DuplicateFilter(int capacity, long windowSeconds) {
+        this.capacity = Integer.highestOneBit(Math.max(1024, capacity) - 1) << 1;
+        this.windowNanos = windowSeconds * 1_000_000_000L;
+        this.current = new Generation(this.capacity);
+        this.previous = new Generation(this.capacity);
+        LOGGER.info("Duplicate filter: {} slots per generation, {}s window, {} KB",
+                this.capacity, windowSeconds, getMemoryBytes() / 1024);
+    }
+
+    /**
+     * Filter configured from {@code DEDUP_*}, or null when {@code DEDUP_ENABLED} is false.
+     */
+    public static DuplicateFilter fromEnvironment() {
+        if (!Boolean.parseBoolean(System.getenv().getOrDefault("DEDUP_ENABLED", "false"))) {
+            return null;
+        }
+        return new DuplicateFilter(
+                Integer.parseInt(System.getenv().getOrDefault("DEDUP_CAPACITY", "1048576")),
+                Long.parseLong(System.getenv().getOrDefault("DEDUP_WINDOW_SECONDS", "60")));
+    }
+
+    /**
+     * Whether the id was published within the window. A null id is never a duplicate.
+     */
+    public boolean isDuplicate(String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        checked.increment();
+        long fingerprint = fingerprint(messageId);
+        if (current.contains(fingerprint) || previous.contains(fingerprint)) {
+            suppressed.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remember a successfully published id.
+     */
+    public void record(String messageId) {
+        if (messageId == null) {
+            return;
+        }
+        Generation generation = current;
+        if (generation.size.get() >= capacity / 2 || System.nanoTime() - generation.createdNanos > windowNanos) {
+            generation = rotate(generation);
+        }
+        if (generation.insert(fingerprint(messageId))) {
+            recorded.increment();
+        } else {
+            insertOverflows.increment();
+        }
+    }
+
+    private synchronized Generation rotate(Generation expected) {
+        if (current == expected) {
+            previous = expected;
+            current = new Generation(capacity);
+            rotations.incrementAndGet();
+        }
+        return current;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer; never 0 (the empty-slot marker).
+     */
+    static long fingerprint(String messageId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < messageId.length(); i++) {
+            h ^= messageId.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    public long getMemoryBytes() {
+        return 2L * capacity * Long.BYTES;
+    }
+
+    /**
+     * Get duplicate filter statistics.
+     */
+    public DedupStats getStats() {
+        return new DedupStats(
+                capacity,
+                windowNanos / 1_000_000_000L,
+                getMemoryBytes(),
+                current.size.get(),
+                previous.size.get(),
+                checked.sum(),
+                suppressed.sum(),
+                recorded.sum(),
+                insertOverflows.sum(),
+                rotations.get()
+        );
+    }
+
+    /**
+     * One open-addressed fingerprint table.
+     */
+    private static final class Generation {
+        private final AtomicLongArray slots;
+        private final int mask;
+        private final AtomicInteger size = new AtomicInteger(0);
+        private final long createdNanos = System.nanoTime();
+
+        Generation(int capacity) {
+            this.slots = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        boolean contains(long fingerprint) {
+            int index = (int) fingerprint & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long slot = slots.get(index);
+                if (slot == fingerprint) {
+                    return true;
+                }
+                if (slot == 0) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * @return false if no free slot was found within {@link #MAX_PROBES}
+         */
+        boolean insert(long fingerprint) {
+            int index = (int) fingerprint & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long slot = slots.get(index);
+                if (slot == fingerprint) {
+                    return true;
+                }
+                if (slot == 0) {
+                    if (slots.compareAndSet(index, 0, fingerprint)) {
+                        size.incrementAndGet();
+                        return true;
+                    }
+                    // Lost the race for this slot; look at it again
+                    probe--;
+                    continue;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Duplicate filter statistics data class.
+     */
+    public static class DedupStats {
+        public final int capacityPerGeneration;
+        public final long windowSeconds;
+        public final long memoryBytes;
+        public final int currentEntries;
+        public final int previousEntries;
+        public final long checked;
+        public final long suppressed;
+        public final long recorded;
+        public final long insertOverflows;
+        public final int rotations;
+
+        public DedupStats(int capacityPerGeneration, long windowSeconds, long memoryBytes, int currentEntries,
+                          int previousEntries, long checked, long suppressed, long recorded, long insertOverflows,
+                          int rotations) {
+            this.capacityPerGeneration = capacityPerGeneration;
+            this.windowSeconds = windowSeconds;
+            this.memoryBytes = memoryBytes;
+            this.currentEntries = currentEntries;
+            this.previousEntries = previousEntries;
+            this.checked = checked;
+            this.suppressed = suppressed;
+            this.recorded = recorded;
+            this.insertOverflows = insertOverflows;
+            this.rotations = rotations;
+        }
+
+        public double getSuppressionRate() {
+            return checked == 0 ? 0.0 : (double) suppressed / checked;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DedupStats[checked=%d, suppressed=%d (%.2f%%), entries=%d+%d, rotations=%d, "
+                            + "memory=%dKB]",
+                    checked, suppressed, getSuppressionRate() * 100, currentEntries, previousEntries, rotations,
+                    memoryBytes / 1024);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.cs6650.chat.server.ws;
+
+import javax.websocket.Session;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of messages being published at once, per session and for the whole node.
+ * A message holds a permit from the moment it is accepted until its publish completes, so when the
+ * broker slows down the limits are hit quickly and new frames are answered with a retry response
+ * instead of piling up behind blocked publishes.
+ */
+public class IngestLimiter {
+
+    private static final String SESSION_IN_FLIGHT = "ingest.inFlight";
+
+    private final int maxPerSession;
+    private final int maxPerNode;
+    private final AtomicInteger nodeInFlight = new AtomicInteger(0);
+
+    // Statistics
+    private final AtomicLong accepted = new AtomicLong(0);
+    private final AtomicLong rejectedSession = new AtomicLong(0);
+    private final AtomicLong rejectedNode = new AtomicLong(0);
+    private final AtomicInteger peakInFlight = new AtomicInteger(0);
+
+    public IngestLimiter(int maxPerSession, int maxPerNode) {
+        this.maxPerSession = maxPerSession;
+        this.maxPerNode = maxPerNode;
+    }
+
+    /**
+     * Attach the per-session in-flight counter; called when the session opens.
+     */
+    public void register(Session session) {
+        session.getUserProperties().put(SESSION_IN_FLIGHT, new AtomicInteger(0));
+    }
+
+    /**
+     * Try to take a permit for one message.
+     *
+     * @return null when accepted, otherwise the reason for rejection ({@code "session"} or {@code "node"})
+     */
+    public String tryAcquire(Session session) {
+        AtomicInteger sessionInFlight = sessionCounter(session);
+        if (sessionInFlight.incrementAndGet() > maxPerSession) {
+            sessionInFlight.decrementAndGet();
+            rejectedSession.incrementAndGet();
+            return "session";
+        }
+        int inFlight = nodeInFlight.incrementAndGet();
+        if (inFlight > maxPerNode) {
+            nodeInFlight.decrementAndGet();
+            sessionInFlight.decrementAndGet();
+            rejectedNode.incrementAndGet();
+            return "node";
+        }
+        peakInFlight.accumulateAndGet(inFlight, Math::max);
+        accepted.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Give back the permit of a message whose publish has completed (successfully or not).
+     */
+    public void release(Session session) {
+        sessionCounter(session).decrementAndGet();
+        nodeInFlight.decrementAndGet();
+    }
+
+    private AtomicInteger sessionCounter(Session session) {
+        Object counter = session.getUserProperties().get(SESSION_IN_FLIGHT);
+        if (counter == null) {
+            // Sessions opened before registration still get a counter
+            counter = session.getUserProperties().computeIfAbsent(SESSION_IN_FLIGHT, key -> new AtomicInteger(0));
+        }
+        return (AtomicInteger) counter;
+    }
+
+    /**
+     * Get ingest statistics.
+     */
+    public IngestStats getStats() {
+        return new IngestStats(
+                maxPerSession,
+                maxPerNode,
+                nodeInFlight.get(),
+                peakInFlight.get(),
+                accepted.get(),
+                rejectedSession.get(),
+                rejectedNode.get()
+        );
+    }
+
+    /**
+     * Ingest statistics data class.
+     */
+    public static class IngestStats {
+        public final int maxPerSession;
+        public final int maxPerNode;
+        public final int inFlight;
+        public final int peakInFlight;
+        public final long accepted;
+        public final long rejectedSession;
+        public final long rejectedNode;
+
+        public IngestStats(int maxPerSession, int maxPerNode, int inFlight, int peakInFlight,
+                           long accepted, long rejectedSession, long rejectedNode) {
+            this.maxPerSession = maxPerSession;
+            this.maxPerNode = maxPerNode;
+            this.inFlight = inFlight;
+            this.peakInFlight = peakInFlight;
+            this.accepted = accepted;
+            this.rejectedSession = rejectedSession;
+            this.rejectedNode = rejectedNode;
+        }
+
+        public long getRejected() {
+            return rejectedSession + rejectedNode;
+        }
+
+        public double getRejectRate() {
+            long total = accepted + getRejected();
+            return total == 0 ? 0.0 : (double) getRejected() / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("IngestStats[inFlight=%d/%d, peak=%d, accepted=%d, rejectedSession=%d, "
+                            + "rejectedNode=%d, rejectRate=%.2f%%]",
+                    inFlight, maxPerNode, peakInFlight, accepted, rejectedSession, rejectedNode,
+                    getRejectRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.cs6650.chat.server.ws;
+
+import javax.websocket.Session;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides which thread handles an inbound frame ({@code EXECUTION_MODE}).
+ * <ul>
+ *   <li>{@code container} – the WebSocket container thread runs the whole sequence (default).</li>
+ *   <li>{@code virtual} – each session gets a serial lane whose tasks run on virtual threads, so blocking on a
+ *       channel borrow or a broker confirm parks a virtual thread instead of holding a container thread.
+ *       Tasks of one session run one after another, in arrival order.</li>
+ * </ul>
+ * The module compiles for Java 11, so the virtual-thread executor is looked up reflectively; on a JVM without
+ * virtual threads the lanes fall back to a cached platform-thread pool.
+ */
+public class MessageExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageExecutor.class);
+
+    private static final String SESSION_LANE = "execution.lane";
+
+    /**
+     * Where message handling runs.
+     */
+    public enum Mode {
+        CONTAINER,
+        VIRTUAL
+    }
+
+    private final Mode mode;
+    private final int maxQueuedPerSession;
+    private final ExecutorService executor;
+    private final String executorType;
+
+    // Statistics
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong completed = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicInteger peakLaneDepth = new AtomicInteger(0);
+
+    public MessageExecutor(Mode mode, int maxQueuedPerSession) {
+        this.mode = mode;
+        this.maxQueuedPerSession = maxQueuedPerSession;
+        if (mode == Mode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                this.executor = virtual;
+                this.executorType = "virtual";
+            } else {
+                LOGGER.warn("Virtual threads are not available on this JVM ({}); using a cached platform-thread pool",
+                        System.getProperty("java.version"));
+                this.executor = Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "Message-Worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+                this.executorType = "platform";
+            }
+        } else {
+            this.executor = null;
+            this.executorType = "container";
+        }
+        LOGGER.info("Message execution mode {} ({}), max {} queued frames per session",
+                mode.name().toLowerCase(), executorType, maxQueuedPerSession);
+    }
+
+    public static MessageExecutor fromEnvironment() {
+        Mode mode = Mode.valueOf(System.getenv().getOrDefault("EXECUTION_MODE", "container").toUpperCase());
+        int maxQueued = Integer.parseInt(System.getenv().getOrDefault("EXECUTION_MAX_QUEUED_PER_SESSION", "256"));
+        return new MessageExecutor(mode, maxQueued);
+    }
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} when the running JVM has it (Java 21+), otherwise null.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // NoSuchMethodException before Java 19; UnsupportedOperationException on 19/20 without --enable-preview
+            return null;
+        }
+    }
+
+    /**
+     * Whether handling runs on the calling container thread.
+     */
+    public boolean isInline() {
+        return mode == Mode.CONTAINER;
+    }
+
+    /**
+     * Queue a task on the session's serial lane.
+     *
+     * @return false if the lane already holds {@code EXECUTION_MAX_QUEUED_PER_SESSION} tasks; the task is not run
+     */
+    public boolean execute(Session session, Runnable task) {
+        Lane lane = lane(session);
+        int depth = lane.depth.incrementAndGet();
+        if (depth > maxQueuedPerSession) {
+            lane.depth.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        peakLaneDepth.accumulateAndGet(depth, Math::max);
+        queued.incrementAndGet();
+        submitted.incrementAndGet();
+        lane.tasks.offer(task);
+        lane.schedule();
+        return true;
+    }
+
+    private Lane lane(Session session) {
+        Object lane = session.getUserProperties().get(SESSION_LANE);
+        if (lane == null) {
+            lane = session.getUserProperties().computeIfAbsent(SESSION_LANE, key -> new Lane());
+        }
+        return (Lane) lane;
+    }
+
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Get execution statistics.
+     */
+    public ExecutionStats getStats() {
+        return new ExecutionStats(
+                mode.name().toLowerCase(),
+                executorType,
+                submitted.get(),
+                completed.get(),
+                failed.get(),
+                rejected.get(),
+                queued.get(),
+                peakLaneDepth.get(),
+                System.getProperty("java.version")
+        );
+    }
+
+    /**
+     * Serial task queue of one session. At most one worker drains it at a time; the worker
+     * keeps going until the queue is empty, then releases the lane.
+     */
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger(0);
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        LOGGER.error("Message task failed", e);
+                    }
+                    depth.decrementAndGet();
+                    queued.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+                scheduled.set(false);
+                // A task may have been offered after the last poll but before the flag was cleared
+                if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Execution statistics data class.
+     */
+    public static class ExecutionStats {
+        public final String mode;
+        public final String executor;
+        public final long submitted;
+        public final long completed;
+        public final long failed;
+        public final long rejected;
+        public final int queued;
+        public final int peakLaneDepth;
+        // Virtual threads pin their carrier inside synchronized blocks before Java 24, so results depend on it
+        public final String javaVersion;
+
+        public ExecutionStats(String mode, String executor, long submitted, long completed, long failed,
+                              long rejected, int queued, int peakLaneDepth, String javaVersion) {
+            this.mode = mode;
+            this.executor = executor;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.queued = queued;
+            this.peakLaneDepth = peakLaneDepth;
+            this.javaVersion = javaVersion;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ExecutionStats[mode=%s, executor=%s, submitted=%d, completed=%d, failed=%d, "
+                            + "rejected=%d, queued=%d, peakLaneDepth=%d, java=%s]",
+                    mode, executor, submitted, completed, failed, rejected, queued, peakLaneDepth, javaVersion);
+        }
+    }
+}
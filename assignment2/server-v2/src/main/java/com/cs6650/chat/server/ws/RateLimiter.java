@@ -0,0 +1,98 @@
+package com.cs6650.chat.server.ws;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed token bucket using the generic cell rate algorithm (GCRA).
+ * <p>
+ * Each key holds a single {@link AtomicLong}: the theoretical arrival time of the next request. A request is
+ * admitted by advancing it one emission interval ({@code 1s / ratePerSecond}) with a CAS, as long as that does not
+ * push it more than {@code burst} intervals ahead of now. There is no lock and no refill thread; concurrent
+ * requests for different keys never touch the same state. Keys whose bucket has refilled completely carry no
+ * information and are swept once the map reaches {@code maxKeys}, at most once per refill window (the time an
+ * empty bucket takes to fill), so a full map of active keys does not turn every new key into a full scan.
+ * A new key that finds the map still full is refused until the next sweep frees room.
+ *
+ * @param <K> key type (user id, room id)
+ */
+public class RateLimiter<K> {
+
+    private final long emissionIntervalNanos;
+    private final long burstWindowNanos;
+    private final int maxKeys;
+    private final Map<K, AtomicLong> cells = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos;
+    private final AtomicLong keysRefused = new AtomicLong(0);
+
+    public RateLimiter(double ratePerSecond, int burst, int maxKeys) {
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / ratePerSecond));
+        this.burstWindowNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.maxKeys = maxKeys;
+        this.nextSweepNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Try to admit one request for {@code key}.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return 0 if admitted, otherwise the nanoseconds until a request for this key would be admitted
+     */
+    public long tryAcquire(K key, long nowNanos) {
+        AtomicLong cell = cells.get(key);
+        if (cell == null) {
+            if (cells.size() >= maxKeys) {
+                sweep(nowNanos);
+                if (cells.size() >= maxKeys) {
+                    keysRefused.incrementAndGet();
+                    return Math.max(1L, nextSweepNanos.get() - nowNanos);
+                }
+            }
+            cell = cells.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long tat = cell.get();
+            long next = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > burstWindowNanos) {
+                return ahead - burstWindowNanos;
+            }
+            if (cell.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back one request admitted for {@code key}, e.g. when a later check rejected the message anyway.
+     */
+    public void release(K key) {
+        AtomicLong cell = cells.get(key);
+        if (cell != null) {
+            cell.addAndGet(-emissionIntervalNanos);
+        }
+    }
+
+    /**
+     * Drop keys whose bucket is full again, unless a sweep ran within the last refill window.
+     */
+    private void sweep(long nowNanos) {
+        long due = nextSweepNanos.get();
+        if (nowNanos - due < 0 || !nextSweepNanos.compareAndSet(due, nowNanos + burstWindowNanos)) {
+            return;
+        }
+        cells.values().removeIf(cell -> cell.get() - nowNanos <= 0);
+    }
+
+    /**
+     * New keys refused because the map was full.
+     */
+    public long getKeysRefused() {
+        return keysRefused.get();
+    }
+
+    public int getTrackedKeys() {
+        return cells.size();
+    }
+}
@@ -0,0 +1,140 @@
+package com.cs6650.chat.server.ws;
+
+import com.cs6650.chat.server.config.ObjectMapperProvider;
+import com.cs6650.chat.server.model.QueueMessage;
+import com.cs6650.chat.server.queue.MessageBus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The consumer's broadcast step running inside the server: subscribes to rooms 1-20 on the {@link MessageBus}
+ * and fans every message out to the sessions of {@link BroadcastEndpoint} in that room.
+ * Only used with the in-memory bus; with RabbitMQ the consumer application does this.
+ * <p>
+ * Frames go through each session's {@link SessionOutbound}, so a delivery is acked as soon as it is queued
+ * for every session and a slow reader never holds up its room.
+ */
+public class RoomBroadcaster implements MessageBus.MessageHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomBroadcaster.class);
+
+    private final ObjectWriter messageWriter = ObjectMapperProvider.get().writerFor(QueueMessage.class);
+    private final Map<String, Set<Session>> roomSessions = new ConcurrentHashMap<>();
+    private final List<MessageBus.Subscription> subscriptions = new ArrayList<>();
+
+    private final AtomicLong messagesProcessed = new AtomicLong(0);
+    private final AtomicLong framesQueued = new AtomicLong(0);
+    private final AtomicLong framesDropped = new AtomicLong(0);
+
+    /**
+     * Subscribe to all rooms.
+     */
+    public void start(MessageBus bus) throws IOException {
+        for (int roomId = 1; roomId <= 20; roomId++) {
+            String room = String.valueOf(roomId);
+            roomSessions.put(room, new CopyOnWriteArraySet<>());
+            subscriptions.add(bus.subscribe(room, this));
+        }
+        LOGGER.info("Broadcasting rooms 1-20 from the {} bus", bus.getName());
+    }
+
+    public void addSession(String roomId, Session session) {
+        roomSessions.computeIfAbsent(roomId, key -> new CopyOnWriteArraySet<>()).add(session);
+    }
+
+    public void removeSession(String roomId, Session session) {
+        Set<Session> sessions = roomSessions.get(roomId);
+        if (sessions != null) {
+            sessions.remove(session);
+        }
+    }
+
+    @Override
+    public void onMessage(QueueMessage message, MessageBus.Delivery delivery) {
+        Set<Session> sessions = roomSessions.get(message.getRoomId());
+        if (sessions != null && !sessions.isEmpty()) {
+            String json;
+            try {
+                json = messageWriter.writeValueAsString(message);
+            } catch (JsonProcessingException e) {
+                LOGGER.error("Failed to encode message {} for broadcast", message.getMessageId(), e);
+                delivery.nack(false);
+                return;
+            }
+            for (Session session : sessions) {
+                if (session.isOpen() && SessionOutbound.of(session).send(json)) {
+                    framesQueued.incrementAndGet();
+                } else {
+                    framesDropped.incrementAndGet();
+                }
+            }
+        }
+        messagesProcessed.incrementAndGet();
+        delivery.ack();
+    }
+
+    public void stop() {
+        subscriptions.forEach(MessageBus.Subscription::cancel);
+    }
+
+    /**
+     * Get broadcast statistics.
+     */
+    public BroadcastStats getStats() {
+        int sessions = 0;
+        for (Set<Session> room : roomSessions.values()) {
+            sessions += room.size();
+        }
+        return new BroadcastStats(sessions, messagesProcessed.get(), framesQueued.get(), framesDropped.get());
+    }
+
+    /**
+     * Broadcast statistics data class.
+     */
+    public static class BroadcastStats {
+        public final int sessions;
+        public final long messagesProcessed;
+        public final long framesQueued;
+        public final long framesDropped;
+
+        public BroadcastStats(int sessions, long messagesProcessed, long framesQueued, long framesDropped) {
+            this.sessions = sessions;
+            this.messagesProcessed = messagesProcessed;
+            this.framesQueued = framesQueued;
+            this.framesDropped = framesDropped;
+        }
+
+        public int getSessions() {
+            return sessions;
+        }
+
+        public long getMessagesProcessed() {
+            return messagesProcessed;
+        }
+
+        public long getFramesQueued() {
+            return framesQueued;
+        }
+
+        public long getFramesDropped() {
+            return framesDropped;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BroadcastStats[sessions=%d, messages=%d, framesQueued=%d, framesDropped=%d]",
+                    sessions, messagesProcessed, framesQueued, framesDropped);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.cs6650.chat.server.ws;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking outbound queue for one WebSocket session.
+ * <p>
+ * Frames are written with the async remote, one at a time (the container allows only one outstanding
+ * async text write per session); the next frame is sent from the completion callback. Callers never
+ * wait for the socket, so a slow client cannot hold a container thread. When a session's backlog
+ * exceeds {@code OUTBOUND_MAX_BACKLOG} frames it is closed with 1013 (try again later).
+ */
+public class SessionOutbound implements SendHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionOutbound.class);
+
+    private static final String USER_PROPERTY = "outbound";
+    private static final int MAX_BACKLOG = Integer.parseInt(
+            System.getenv().getOrDefault("OUTBOUND_MAX_BACKLOG", "256"));
+    private static final long SEND_TIMEOUT_MS = Long.parseLong(
+            System.getenv().getOrDefault("OUTBOUND_SEND_TIMEOUT_MS", "10000"));
+
+    // Statistics shared by all sessions
+    private static final AtomicLong TOTAL_BACKLOG = new AtomicLong(0);
+    private static final AtomicInteger PEAK_SESSION_BACKLOG = new AtomicInteger(0);
+    private static final AtomicLong FRAMES_SENT = new AtomicLong(0);
+    private static final AtomicLong FRAMES_FAILED = new AtomicLong(0);
+    private static final AtomicLong WRITE_NANOS_TOTAL = new AtomicLong(0);
+    private static final AtomicLong WRITE_NANOS_MAX = new AtomicLong(0);
+    private static final AtomicLong SESSIONS_CLOSED_FOR_BACKLOG = new AtomicLong(0);
+
+    private final Session session;
+    private final Queue<PendingFrame> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger(0);
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile PendingFrame inFlight;
+
+    private SessionOutbound(Session session) {
+        this.session = session;
+        session.getAsyncRemote().setSendTimeout(SEND_TIMEOUT_MS);
+    }
+
+    /**
+     * Attach an outbound queue to a newly opened session.
+     */
+    public static void register(Session session) {
+        session.getUserProperties().put(USER_PROPERTY, new SessionOutbound(session));
+    }
+
+    /**
+     * Get the outbound queue of a session, creating one if the session was never registered.
+     */
+    public static SessionOutbound of(Session session) {
+        Object outbound = session.getUserProperties().get(USER_PROPERTY);
+        if (outbound == null) {
+            outbound = session.getUserProperties().computeIfAbsent(USER_PROPERTY, key -> new SessionOutbound(session));
+        }
+        return (SessionOutbound) outbound;
+    }
+
+    /**
+     * Queue a text frame for sending; returns immediately.
+     *
+     * @return false if the frame was dropped because the session is closed or over its backlog limit
+     */
+    public boolean send(String text) {
+        if (closed.get()) {
+            return false;
+        }
+        int depth = backlog.incrementAndGet();
+        if (depth > MAX_BACKLOG) {
+            backlog.decrementAndGet();
+            closeForBacklog(depth);
+            return false;
+        }
+        TOTAL_BACKLOG.incrementAndGet();
+        PEAK_SESSION_BACKLOG.accumulateAndGet(depth, Math::max);
+        queue.offer(new PendingFrame(text, System.nanoTime()));
+        drain();
+        return true;
+    }
+
+    /**
+     * Start the next write if none is outstanding.
+     */
+    private void drain() {
+        while (writing.compareAndSet(false, true)) {
+            PendingFrame next = queue.poll();
+            if (next != null) {
+                inFlight = next;
+                try {
+                    session.getAsyncRemote().sendText(next.text, this);
+                } catch (RuntimeException e) {
+                    // e.g. IllegalStateException once the session is closing
+                    onResult(new SendResult(e));
+                }
+                return;
+            }
+            writing.set(false);
+            // A frame may have been queued after the poll but before the flag was cleared
+            if (queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Completion callback of the outstanding write.
+     */
+    @Override
+    public void onResult(SendResult result) {
+        PendingFrame frame = inFlight;
+        inFlight = null;
+        backlog.decrementAndGet();
+        TOTAL_BACKLOG.decrementAndGet();
+        if (result.isOK()) {
+            long elapsed = System.nanoTime() - frame.queuedAt;
+            FRAMES_SENT.incrementAndGet();
+            WRITE_NANOS_TOTAL.addAndGet(elapsed);
+            WRITE_NANOS_MAX.accumulateAndGet(elapsed, Math::max);
+        } else {
+            FRAMES_FAILED.incrementAndGet();
+            LOGGER.warn("Async send failed for session {}: {}", session.getId(), String.valueOf(result.getException()));
+        }
+        writing.set(false);
+        if (!result.isOK()) {
+            discard();
+            return;
+        }
+        drain();
+    }
+
+    private void closeForBacklog(int depth) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        SESSIONS_CLOSED_FOR_BACKLOG.incrementAndGet();
+        LOGGER.warn("Closing session {}: outbound backlog {} exceeds {}", session.getId(), depth, MAX_BACKLOG);
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Outbound backlog exceeded"));
+        } catch (IOException e) {
+            LOGGER.debug("Ignoring close failure for session {}", session.getId(), e);
+        }
+    }
+
+    /**
+     * Drop queued frames once the session can no longer be written; called on failure and on close.
+     */
+    public void discard() {
+        closed.set(true);
+        PendingFrame frame;
+        while ((frame = queue.poll()) != null) {
+            backlog.decrementAndGet();
+            TOTAL_BACKLOG.decrementAndGet();
+            FRAMES_FAILED.incrementAndGet();
+        }
+    }
+
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Get outbound statistics across all sessions.
+     */
+    public static OutboundStats getStats() {
+        return new OutboundStats(
+                MAX_BACKLOG,
+                TOTAL_BACKLOG.get(),
+                PEAK_SESSION_BACKLOG.get(),
+                FRAMES_SENT.get(),
+                FRAMES_FAILED.get(),
+                WRITE_NANOS_TOTAL.get(),
+                WRITE_NANOS_MAX.get(),
+                SESSIONS_CLOSED_FOR_BACKLOG.get()
+        );
+    }
+
+    private static final class PendingFrame {
+        private final String text;
+        private final long queuedAt;
+
+        PendingFrame(String text, long queuedAt) {
+            this.text = text;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    /**
+     * Outbound statistics data class. Write latency runs from queueing a frame to its completion callback.
+     */
+    public static class OutboundStats {
+        public final int maxBacklog;
+        public final long totalBacklog;
+        public final int peakSessionBacklog;
+        public final long framesSent;
+        public final long framesFailed;
+        public final long writeNanosTotal;
+        public final long writeNanosMax;
+        public final long sessionsClosedForBacklog;
+
+        public OutboundStats(int maxBacklog, long totalBacklog, int peakSessionBacklog, long framesSent,
+                             long framesFailed, long writeNanosTotal, long writeNanosMax,
+                             long sessionsClosedForBacklog) {
+            this.maxBacklog = maxBacklog;
+            this.totalBacklog = totalBacklog;
+            this.peakSessionBacklog = peakSessionBacklog;
+            this.framesSent = framesSent;
+            this.framesFailed = framesFailed;
+            this.writeNanosTotal = writeNanosTotal;
+            this.writeNanosMax = writeNanosMax;
+            this.sessionsClosedForBacklog = sessionsClosedForBacklog;
+        }
+
+        public double getAverageWriteMicros() {
+            return framesSent == 0 ? 0.0 : writeNanosTotal / 1000.0 / framesSent;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("OutboundStats[backlog=%d, peakSessionBacklog=%d, sent=%d, failed=%d, "
+                            + "avgWrite=%.1fus, maxWrite=%.1fus, closedForBacklog=%d]",
+                    totalBacklog, peakSessionBacklog, framesSent, framesFailed, getAverageWriteMicros(),
+                    writeNanosMax / 1000.0, sessionsClosedForBacklog);
+        }
+    }
+}
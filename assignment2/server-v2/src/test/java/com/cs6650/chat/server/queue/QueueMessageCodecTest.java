@@ -0,0 +1,191 @@
+package com.cs6650.chat.server.queue;
+
+import com.cs6650.chat.server.model.MessageType;
+import com.cs6650.chat.server.model.QueueMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class QueueMessageCodecTest {
+
+    // Also decoded by the consumers' QueueMessageCodecTest; keep the three in step
+    static final String SAMPLE_V2_HEX = "0207018fa1b2c3d4e57abc8123456789abcd07b960c1c4bff6de969003010677616c6c79"
+            + "0e686920f09f918b20636166c3a90e6e6f64652d612d3132333435360931302e302e302e37b960";
+
+    @Test
+    public void roundTripsEveryField() {
+        QueueMessage message = sample();
+
+        QueueMessage decoded = QueueMessageCodec.decode(QueueMessageCodec.encode(message));
+
+        assertSameMessage(message, decoded);
+        assertEquals(12345, decoded.getRoomSeq());
+    }
+
+    @Test
+    public void encodesTheSharedSampleBytes() {
+        assertEquals(SAMPLE_V2_HEX, hex(QueueMessageCodec.encode(sample())));
+    }
+
+    @Test
+    public void roundTripsNullFields() {
+        QueueMessage message = new QueueMessage();
+
+        QueueMessage decoded = QueueMessageCodec.decode(QueueMessageCodec.encode(message));
+
+        assertNull(decoded.getMessageId());
+        assertNull(decoded.getRoomId());
+        assertNull(decoded.getUserId());
+        assertNull(decoded.getUsername());
+        assertNull(decoded.getMessage());
+        assertNull(decoded.getTimestamp());
+        assertNull(decoded.getMessageType());
+        assertNull(decoded.getServerId());
+        assertNull(decoded.getClientIp());
+        assertEquals(0, decoded.getRoomSeq());
+    }
+
+    @Test
+    public void roundTripsEmptyStringsDistinctFromNull() {
+        QueueMessage message = sample();
+        message.setUsername("");
+        message.setMessage("");
+
+        QueueMessage decoded = QueueMessageCodec.decode(QueueMessageCodec.encode(message));
+
+        assertEquals("", decoded.getUsername());
+        assertEquals("", decoded.getMessage());
+    }
+
+    @Test
+    public void encodesSurrogatePairsAsUtf8() {
+        QueueMessage message = sample();
+        // U+1F600 and U+1D11E are outside the BMP; the rest covers 1, 2 and 3 byte sequences
+        message.setMessage("aé中😀𝄞");
+
+        byte[] encoded = QueueMessageCodec.encode(message);
+
+        assertEquals(message.getMessage(), QueueMessageCodec.decode(encoded).getMessage());
+    }
+
+    @Test
+    public void replacesUnpairedSurrogatesLikeStringGetBytes() {
+        QueueMessage message = sample();
+        message.setMessage("x\ud83dy\ude00");
+
+        QueueMessage decoded = QueueMessageCodec.decode(QueueMessageCodec.encode(message));
+
+        assertEquals(new String(message.getMessage().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+                decoded.getMessage());
+        assertEquals("x?y?", decoded.getMessage());
+    }
+
+    @Test
+    public void keepsIdsThatAreNotCanonicalNumbersOrUuids() {
+        QueueMessage message = sample();
+        message.setMessageId("0195F3A0-7B2C-7D4E-8F10-112233445566");
+        message.setRoomId("007");
+        message.setUserId("user-42");
+
+        QueueMessage decoded = QueueMessageCodec.decode(QueueMessageCodec.encode(message));
+
+        assertEquals("0195F3A0-7B2C-7D4E-8F10-112233445566", decoded.getMessageId());
+        assertEquals("007", decoded.getRoomId());
+        assertEquals("user-42", decoded.getUserId());
+    }
+
+    @Test
+    public void roundTripsLargeRoomSeqAndTimestampPrecision() {
+        QueueMessage message = sample();
+        message.setRoomSeq(Long.MAX_VALUE);
+        message.setTimestamp(Instant.ofEpochSecond(1_760_000_000L, 123_456_789));
+
+        QueueMessage decoded = QueueMessageCodec.decode(QueueMessageCodec.encode(message));
+
+        assertEquals(Long.MAX_VALUE, decoded.getRoomSeq());
+        // Timestamps are carried at microsecond precision
+        assertEquals(Instant.ofEpochSecond(1_760_000_000L, 123_456_000), decoded.getTimestamp());
+    }
+
+    @Test
+    public void decodesVersion1WithoutRoomSeq() {
+        QueueMessage message = sample();
+        message.setRoomSeq(0);
+        byte[] v2 = QueueMessageCodec.encode(message);
+        // Version 1 is version 2 without the trailing roomSeq varint (a single 0 byte here)
+        byte[] v1 = Arrays.copyOf(v2, v2.length - 1);
+        v1[0] = 1;
+
+        QueueMessage decoded = QueueMessageCodec.decode(v1);
+
+        assertSameMessage(message, decoded);
+        assertEquals(0, decoded.getRoomSeq());
+    }
+
+    @Test
+    public void rejectsUnknownVersionsAndTruncatedBodies() {
+        byte[] encoded = QueueMessageCodec.encode(sample());
+        byte[] future = encoded.clone();
+        future[0] = 3;
+
+        assertThrows(IllegalArgumentException.class, () -> QueueMessageCodec.decode(future));
+        assertThrows(IllegalArgumentException.class,
+                () -> QueueMessageCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> QueueMessageCodec.decode(new byte[0]));
+    }
+
+    @Test
+    public void reusedBufferDoesNotLeakIntoNextMessage() {
+        QueueMessage large = sample();
+        large.setMessage("x".repeat(5000));
+        QueueMessage small = sample();
+
+        QueueMessageCodec.encode(large);
+        byte[] encoded = QueueMessageCodec.encode(small);
+
+        assertArrayEquals(QueueMessageCodec.encode(sample()), encoded);
+        assertSameMessage(small, QueueMessageCodec.decode(encoded));
+    }
+
+    static QueueMessage sample() {
+        QueueMessage message = new QueueMessage(
+                "018fa1b2-c3d4-e57a-bc81-23456789abcd",
+                "7",
+                "12345",
+                "wally",
+                "hi 👋 café",
+                Instant.ofEpochSecond(1_760_000_000L, 123_456_000),
+                MessageType.TEXT,
+                "node-a-123456",
+                "10.0.0.7");
+        message.setRoomSeq(12345);
+        return message;
+    }
+
+    private static void assertSameMessage(QueueMessage expected, QueueMessage actual) {
+        assertEquals(expected.getMessageId(), actual.getMessageId());
+        assertEquals(expected.getRoomId(), actual.getRoomId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getMessageType(), actual.getMessageType());
+        assertEquals(expected.getServerId(), actual.getServerId());
+        assertEquals(expected.getClientIp(), actual.getClientIp());
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder out = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            out.append(String.format("%02x", b));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.cs6650.chat.server.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Numbering through a room's lane, the way MessagePublisher (single messages) and RoomBatchPublisher (batches per
+ * partition routing key) use it.
+ */
+public class RoomSequencerTest {
+
+    @Test
+    public void mixedBatchedAndDirectPublishesOnPartitionedRoomAreContiguous() throws Exception {
+        RoomSequencer sequencer = new RoomSequencer();
+        RoomSequencer.Sequence sequence = sequencer.forRoom("7");
+        String[] routingKeys = {"room.7.0", "room.7.1", "room.7.2", "room.7.3"};
+        List<Long> used = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean inStep = new AtomicBoolean();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        int threads = 8;
+        int stepsPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < stepsPerThread; i++) {
+                    String routingKey = routingKeys[random.nextInt(routingKeys.length)];
+                    boolean batch = random.nextBoolean();
+                    int size = batch ? 1 + random.nextInt(10) : 1;
+                    // A batch stops at its first failed publish; a direct publish fails as a whole
+                    int sent = random.nextInt(10) == 0 ? random.nextInt(size) : size;
+                    sequence.submit(firstSeq -> {
+                        if (!inStep.compareAndSet(false, true)) {
+                            overlaps.incrementAndGet();
+                        }
+                        for (int m = 0; m < sent; m++) {
+                            used.add(firstSeq + m);
+                        }
+                        inStep.set(false);
+                        return sent;
+                    });
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, overlaps.get(), "steps of one room must not run concurrently");
+        List<Long> numbers = new ArrayList<>(used);
+        Collections.sort(numbers);
+        for (int i = 0; i < numbers.size(); i++) {
+            assertEquals(i + 1L, numbers.get(i), "numbers must be contiguous and used once");
+        }
+        assertEquals(numbers.size(), sequence.getLast());
+    }
+
+    @Test
+    public void submitDoesNotWaitForARunningStep() throws Exception {
+        RoomSequencer.Sequence sequence = new RoomSequencer().forRoom("1");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+
+        Thread runner = new Thread(() -> sequence.submit(firstSeq -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            order.add(firstSeq);
+            return 1;
+        }));
+        runner.start();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // Queued behind the blocked step; the submitting thread returns at once
+        AtomicBoolean ranOnCaller = new AtomicBoolean();
+        Thread caller = Thread.currentThread();
+        sequence.submit(firstSeq -> {
+            ranOnCaller.set(Thread.currentThread() == caller);
+            order.add(firstSeq);
+            return 1;
+        });
+        assertTrue(order.isEmpty());
+
+        release.countDown();
+        runner.join(5000);
+        assertFalse(ranOnCaller.get(), "the queued step runs on the lane's current runner");
+        assertEquals(List.of(1L, 2L), order);
+    }
+
+    @Test
+    public void failedStepLeavesItsNumberToTheNext() {
+        RoomSequencer.Sequence sequence = new RoomSequencer().forRoom("2");
+        List<Long> seen = new ArrayList<>();
+        sequence.submit(firstSeq -> {
+            seen.add(firstSeq);
+            return 1;
+        });
+        sequence.submit(firstSeq -> {
+            seen.add(firstSeq);
+            return 0;
+        });
+        sequence.submit(firstSeq -> {
+            throw new IllegalStateException("publish blew up");
+        });
+        sequence.submit(firstSeq -> {
+            seen.add(firstSeq);
+            return 3;
+        });
+        assertEquals(List.of(1L, 2L, 2L), seen);
+        assertEquals(4, sequence.getLast());
+    }
+}
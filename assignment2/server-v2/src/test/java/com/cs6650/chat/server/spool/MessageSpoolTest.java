@@ -0,0 +1,173 @@
+package com.cs6650.chat.server.spool;
+
+import com.cs6650.chat.server.spool.MessageSpool.FsyncPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessageSpoolTest {
+
+    private static final String ROUTING_KEY = "room.1";
+    private static final String CONTENT_TYPE = "ct";
+    // 4 byte length + 2 + key + 2 + content type + 20 byte body
+    private static final int RECORD_BYTES = 4 + 2 + 6 + 2 + 2 + 20;
+    // Segment header plus room for exactly three records
+    private static final int SEGMENT_BYTES = 16 + 3 * RECORD_BYTES;
+
+    @TempDir
+    Path directory;
+
+    private final List<MessageSpool> opened = new ArrayList<>();
+
+    @AfterEach
+    public void closeSpools() {
+        for (MessageSpool spool : opened) {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void drainsRecordsInAppendOrder() throws IOException {
+        MessageSpool spool = open(4);
+        appendRange(spool, 0, 5);
+
+        assertEquals(5, spool.getDepth());
+        assertEquals(List.of(0, 1), bodies(spool.peek(2)));
+        // Peeking does not consume
+        assertEquals(List.of(0, 1, 2, 3, 4), bodies(spool.peek(10)));
+
+        spool.commit(spool.peek(2));
+
+        assertEquals(3, spool.getDepth());
+        assertEquals(List.of(2, 3, 4), bodies(spool.peek(10)));
+        assertEquals(5, spool.getAppended());
+        assertEquals(2, spool.getDrained());
+
+        spool.commit(spool.peek(10));
+
+        assertTrue(spool.isEmpty());
+        assertTrue(spool.peek(10).isEmpty());
+    }
+
+    @Test
+    public void reopenResumesFromLastCommit() throws IOException {
+        MessageSpool spool = open(4);
+        appendRange(spool, 0, 5);
+        spool.commit(spool.peek(2));
+        spool.close();
+        opened.remove(spool);
+
+        MessageSpool reopened = open(4);
+
+        assertEquals(3, reopened.getDepth());
+        assertEquals(2, reopened.getSegmentCount());
+        assertEquals(List.of(2, 3, 4), bodies(reopened.peek(10)));
+
+        // New appends go after the recovered ones
+        appendRange(reopened, 5, 7);
+        assertEquals(List.of(2, 3, 4, 5, 6), bodies(reopened.peek(10)));
+    }
+
+    @Test
+    public void rollsOverAndDeletesDrainedSegments() throws IOException {
+        MessageSpool spool = open(4);
+        appendRange(spool, 0, 7);
+
+        assertEquals(3, spool.getSegmentCount());
+        assertEquals(3, segmentFiles().size());
+
+        spool.commit(spool.peek(3));
+
+        assertEquals(2, spool.getSegmentCount());
+        assertEquals(2, segmentFiles().size());
+
+        List<String> beforeDrain = segmentFiles();
+        spool.commit(spool.peek(10));
+
+        // The active segment is kept and rewound rather than deleted
+        assertEquals(1, spool.getSegmentCount());
+        assertEquals(List.of(beforeDrain.get(1)), segmentFiles());
+        assertTrue(spool.isEmpty());
+
+        appendRange(spool, 7, 10);
+        assertEquals(1, spool.getSegmentCount());
+        assertEquals(List.of(7, 8, 9), bodies(spool.peek(10)));
+    }
+
+    @Test
+    public void rejectsAppendsWhenFullOrOversized() throws IOException {
+        MessageSpool spool = open(2);
+        appendRange(spool, 0, 6);
+
+        assertFalse(spool.append(ROUTING_KEY, CONTENT_TYPE, body(6)));
+        assertFalse(spool.append(ROUTING_KEY, CONTENT_TYPE, new byte[SEGMENT_BYTES]));
+        assertEquals(2, spool.getAppendRejected());
+        assertEquals(6, spool.getDepth());
+
+        // Draining the oldest segment makes room again
+        spool.commit(spool.peek(3));
+        assertTrue(spool.append(ROUTING_KEY, CONTENT_TYPE, body(6)));
+        assertEquals(List.of(3, 4, 5, 6), bodies(spool.peek(10)));
+    }
+
+    @Test
+    public void keepsRoutingKeyAndNullContentType() throws IOException {
+        MessageSpool spool = open(4);
+        assertTrue(spool.append("room.42.3", null, "{\"x\":1}".getBytes(StandardCharsets.UTF_8)));
+        spool.close();
+        opened.remove(spool);
+
+        SpoolRecord record = open(4).peek(1).get(0);
+
+        assertEquals("room.42.3", record.getRoutingKey());
+        assertNull(record.getContentType());
+        assertEquals("{\"x\":1}", new String(record.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private MessageSpool open(int maxSegments) throws IOException {
+        MessageSpool spool = new MessageSpool(directory, SEGMENT_BYTES, maxSegments, FsyncPolicy.NONE, 0);
+        opened.add(spool);
+        return spool;
+    }
+
+    private static void appendRange(MessageSpool spool, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            assertTrue(spool.append(ROUTING_KEY, CONTENT_TYPE, body(i)));
+        }
+    }
+
+    private static byte[] body(int i) {
+        return String.format("message-%012d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Integer> bodies(List<SpoolRecord> records) {
+        List<Integer> numbers = new ArrayList<>();
+        for (SpoolRecord record : records) {
+            assertEquals(ROUTING_KEY, record.getRoutingKey());
+            assertEquals(CONTENT_TYPE, record.getContentType());
+            String body = new String(record.getBody(), StandardCharsets.UTF_8);
+            numbers.add(Integer.parseInt(body.substring("message-".length())));
+        }
+        return numbers;
+    }
+
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -167,7 +167,7 @@ public class RoomManager {
         return String.format(
                 "{\"messageId\":\"%s\",\"roomId\":\"%s\",\"userId\":\"%s\",\"username\":\"%s\"," +
                         "\"message\":\"%s\",\"timestamp\":\"%s\",\"messageType\":\"%s\"," +
-                        "\"serverId\":\"%s\",\"clientIp\":\"%s\"}",
+                        "\"serverId\":\"%s\",\"clientIp\":\"%s\",\"roomSeq\":%d}",
                 message.getMessageId(),
                 message.getRoomId(),
                 message.getUserId(),
@@ -176,7 +176,8 @@ public class RoomManager {
                 message.getTimestamp(),
                 message.getMessageType(),
                 message.getServerId(),
-                message.getClientIp()
+                message.getClientIp(),
+                message.getRoomSeq()
         );
     }
 
@@ -0,0 +1,260 @@
+package com.cs6650.chat.consumer.broadcast;
+
+import com.cs6650.chat.consumer.model.QueueMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Restores per-room order before broadcast using the {@code roomSeq} the server stamps on each message.
+ * <p>
+ * Each (room, serverId) pair is one stream. A message with the next expected sequence is released at once,
+ * followed by any held messages it makes contiguous; a message ahead of the expected sequence is held.
+ * If the gap is not filled within {@code windowMs} (a failed publish, or a message still waiting in a server
+ * spool), the buffer skips it and releases what it holds. Messages behind the expected sequence (after a skip,
+ * or redelivered) and messages without a sequence are released immediately.
+ * <p>
+ * The first message seen from a stream sets its starting point, so a consumer can start mid-stream.
+ * A window of 0 turns the buffer into a pass-through.
+ * <p>
+ * Released messages go to a per-stream outbox and the sink (the room broadcast) is called outside the stream lock,
+ * by whichever thread finds the outbox idle, so a slow fan-out never blocks other submitters or the timeout flusher
+ * while it holds a lock, and each stream still reaches the sink in release order.
+ */
+public class SequenceReorderBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceReorderBuffer.class);
+
+    // Streams of servers that stopped publishing are forgotten after this long
+    private static final long STREAM_IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final long windowNanos;
+    private final int maxHeldPerStream;
+    private final Consumer<QueueMessage> sink;
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    // Statistics
+    private final AtomicLong inOrder = new AtomicLong(0);
+    private final AtomicLong reordered = new AtomicLong(0);
+    private final AtomicLong late = new AtomicLong(0);
+    private final AtomicLong unsequenced = new AtomicLong(0);
+    private final AtomicLong gapsSkipped = new AtomicLong(0);
+
+    public SequenceReorderBuffer(long windowMs, int maxHeldPerStream, Consumer<QueueMessage> sink) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxHeldPerStream = Math.max(1, maxHeldPerStream);
+        this.sink = sink;
+        if (windowMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "Reorder-Flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, windowMs / 2);
+            scheduler.scheduleAtFixedRate(this::releaseExpired, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+        LOGGER.info("SequenceReorderBuffer initialized: window={}ms, maxHeldPerStream={}", windowMs, maxHeldPerStream);
+    }
+
+    /**
+     * Hand a consumed message to the buffer; it reaches the sink now or once its predecessors have.
+     */
+    public void submit(QueueMessage message) {
+        long seq = message.getRoomSeq();
+        if (scheduler == null || seq <= 0 || message.getServerId() == null) {
+            unsequenced.incrementAndGet();
+            sink.accept(message);
+            return;
+        }
+        Stream stream = streams.computeIfAbsent(message.getRoomId() + '|' + message.getServerId(), key -> new Stream());
+        boolean drain;
+        synchronized (stream) {
+            long now = System.nanoTime();
+            stream.lastSeenNanos = now;
+            if (stream.expected == 0) {
+                stream.expected = seq;
+            }
+            if (seq == stream.expected) {
+                inOrder.incrementAndGet();
+                stream.outbox.add(message);
+                stream.expected++;
+                releaseContiguous(stream);
+            } else if (seq < stream.expected) {
+                late.incrementAndGet();
+                stream.outbox.add(message);
+            } else {
+                stream.held.put(seq, new Held(message, now));
+                if (stream.held.size() > maxHeldPerStream) {
+                    skipGap(stream);
+                }
+            }
+            drain = claimOutbox(stream);
+        }
+        if (drain) {
+            drainOutbox(stream);
+        }
+    }
+
+    private void releaseContiguous(Stream stream) {
+        Held next;
+        while ((next = stream.held.remove(stream.expected)) != null) {
+            reordered.incrementAndGet();
+            stream.outbox.add(next.message);
+            stream.expected++;
+        }
+    }
+
+    /**
+     * Under the stream lock: whether the caller should deliver the outbox (nobody else is, and it is not empty).
+     */
+    private boolean claimOutbox(Stream stream) {
+        if (stream.draining || stream.outbox.isEmpty()) {
+            return false;
+        }
+        stream.draining = true;
+        return true;
+    }
+
+    /**
+     * Hand released messages to the sink without holding the stream lock, until the outbox is empty.
+     */
+    private void drainOutbox(Stream stream) {
+        while (true) {
+            QueueMessage next;
+            synchronized (stream) {
+                next = stream.outbox.poll();
+                if (next == null) {
+                    stream.draining = false;
+                    return;
+                }
+            }
+            try {
+                sink.accept(next);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error broadcasting message {}", next.getMessageId(), e);
+            }
+        }
+    }
+
+    /**
+     * Give up on the missing sequence numbers before the oldest held message.
+     */
+    private void skipGap(Stream stream) {
+        gapsSkipped.incrementAndGet();
+        stream.expected = stream.held.firstKey();
+        releaseContiguous(stream);
+    }
+
+    private void releaseExpired() {
+        try {
+            long now = System.nanoTime();
+            List<Stream> toDrain = new ArrayList<>();
+            Iterator<Stream> iterator = streams.values().iterator();
+            while (iterator.hasNext()) {
+                Stream stream = iterator.next();
+                synchronized (stream) {
+                    while (!stream.held.isEmpty()
+                            && now - stream.held.firstEntry().getValue().heldSinceNanos >= windowNanos) {
+                        skipGap(stream);
+                    }
+                    if (claimOutbox(stream)) {
+                        toDrain.add(stream);
+                    } else if (stream.held.isEmpty() && stream.outbox.isEmpty() && !stream.draining
+                            && now - stream.lastSeenNanos > STREAM_IDLE_NANOS) {
+                        iterator.remove();
+                    }
+                }
+            }
+            // Every stream's gaps are settled before any broadcast runs on this thread
+            for (Stream stream : toDrain) {
+                drainOutbox(stream);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error releasing held messages", e);
+        }
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Get reorder statistics.
+     */
+    public ReorderStats getStats() {
+        int held = 0;
+        for (Stream stream : streams.values()) {
+            synchronized (stream) {
+                held += stream.held.size();
+            }
+        }
+        return new ReorderStats(streams.size(), held, inOrder.get(), reordered.get(), late.get(),
+                unsequenced.get(), gapsSkipped.get());
+    }
+
+    private static final class Stream {
+        private long expected;
+        private long lastSeenNanos;
+        private final TreeMap<Long, Held> held = new TreeMap<>();
+        // Released, waiting for the sink; draining is set while a thread delivers them
+        private final ArrayDeque<QueueMessage> outbox = new ArrayDeque<>();
+        private boolean draining;
+    }
+
+    private static final class Held {
+        private final QueueMessage message;
+        private final long heldSinceNanos;
+
+        Held(QueueMessage message, long heldSinceNanos) {
+            this.message = message;
+            this.heldSinceNanos = heldSinceNanos;
+        }
+    }
+
+    /**
+     * Reorder statistics data class.
+     */
+    public static class ReorderStats {
+        public final int streams;
+        public final int held;
+        public final long inOrder;
+        public final long reordered;
+        public final long late;
+        public final long unsequenced;
+        public final long gapsSkipped;
+
+        public ReorderStats(int streams, int held, long inOrder, long reordered, long late,
+                            long unsequenced, long gapsSkipped) {
+            this.streams = streams;
+            this.held = held;
+            this.inOrder = inOrder;
+            this.reordered = reordered;
+            this.late = late;
+            this.unsequenced = unsequenced;
+            this.gapsSkipped = gapsSkipped;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ReorderStats[streams=%d, held=%d, inOrder=%d, reordered=%d, late=%d, "
+                            + "unsequenced=%d, gapsSkipped=%d]",
+                    streams, held, inOrder, reordered, late, unsequenced, gapsSkipped);
+        }
+    }
+}
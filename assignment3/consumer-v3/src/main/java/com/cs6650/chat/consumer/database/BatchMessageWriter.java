@@ -4,19 +4,25 @@ import com.cs6650.chat.consumer.model.QueueMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Batch message writer for PostgreSQL.
  * Accumulates messages and writes them in batches for better performance.
+ * A message added with a {@link WriteCallback} reports whether the batch that carried it was committed.
  */
 public class BatchMessageWriter {
     private static final Logger logger = LoggerFactory.getLogger(BatchMessageWriter.class);
@@ -24,7 +30,8 @@ public class BatchMessageWriter {
     private final DatabaseConnectionPool connectionPool;
     private final int batchSize;
     private final long flushIntervalMs;
-    private final BlockingQueue<QueueMessage> messageQueue;
+    private final int queueCapacity;
+    private final BlockingQueue<PendingWrite> messageQueue;
     private final ScheduledExecutorService scheduler;
     private final ExecutorService writerExecutor;
     private volatile boolean running;
@@ -34,10 +41,14 @@ public class BatchMessageWriter {
     private final AtomicLong totalBatchesWritten = new AtomicLong(0);
     private final AtomicLong totalErrors = new AtomicLong(0);
 
+    // MESSAGE_ID_STORAGE: uuid writes message_id as a 16-byte UUID, text writes the id string unchanged
+    private static final boolean UUID_MESSAGE_IDS = "uuid".equalsIgnoreCase(
+        System.getenv().getOrDefault("MESSAGE_ID_STORAGE", "uuid"));
+
     // SQL query
     private static final String INSERT_SQL =
-        "INSERT INTO messages (message_id, room_id, user_id, content, timestamp, created_at) " +
-        "VALUES (?, ?, ?, ?, ?, ?) " +
+        "INSERT INTO messages (message_id, room_id, user_id, content, timestamp, created_at, server_id, room_seq) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
         "ON CONFLICT (message_id) DO NOTHING";
 
     /**
@@ -49,7 +60,8 @@ public class BatchMessageWriter {
         this.connectionPool = connectionPool;
         this.batchSize = batchSize;
         this.flushIntervalMs = flushIntervalMs;
-        this.messageQueue = new LinkedBlockingQueue<>(batchSize * 10); // Buffer capacity
+        this.queueCapacity = batchSize * 10; // Buffer capacity
+        this.messageQueue = new LinkedBlockingQueue<>(queueCapacity);
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "BatchWriter-Scheduler");
             t.setDaemon(true);
@@ -62,8 +74,8 @@ public class BatchMessageWriter {
         });
         this.running = true;
 
-        logger.info("BatchMessageWriter initialized: batchSize={}, flushInterval={}ms",
-                   batchSize, flushIntervalMs);
+        logger.info("BatchMessageWriter initialized: batchSize={}, flushInterval={}ms, messageIdStorage={}",
+                   batchSize, flushIntervalMs, UUID_MESSAGE_IDS ? "uuid" : "text");
     }
 
     /**
@@ -86,17 +98,40 @@ public class BatchMessageWriter {
         logger.info("BatchMessageWriter started successfully");
     }
 
+    /**
+     * Called by the batch processor thread once the batch holding a message has been committed or rolled back.
+     */
+    public interface WriteCallback {
+        /**
+         * The message added with {@code token} was stored ({@code persisted}, duplicates included) or was not.
+         */
+        void onWritten(long token, boolean persisted);
+
+        /**
+         * Called once per batch, after {@link #onWritten} for every message in it that used this callback.
+         */
+        void onBatchDone();
+    }
+
     /**
      * Add a message to the write queue.
      */
     public boolean addMessage(QueueMessage message) {
+        return addMessage(message, null, 0);
+    }
+
+    /**
+     * Add a message to the write queue and report its outcome to {@code callback} with {@code token}.
+     * The callback is not invoked when the message is rejected (false is returned).
+     */
+    public boolean addMessage(QueueMessage message, WriteCallback callback, long token) {
         if (!running) {
             logger.warn("BatchWriter is not running, message rejected");
             return false;
         }
 
         try {
-            boolean added = messageQueue.offer(message, 1, TimeUnit.SECONDS);
+            boolean added = messageQueue.offer(new PendingWrite(message, callback, token), 1, TimeUnit.SECONDS);
             if (!added) {
                 logger.warn("Failed to add message to queue (queue full): {}", message.getMessageId());
             }
@@ -113,12 +148,12 @@ public class BatchMessageWriter {
      */
     private void processBatches() {
         logger.info("Batch processor started");
-        List<QueueMessage> batch = new ArrayList<>(batchSize);
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
 
         while (running) {
             try {
                 // Wait for first message
-                QueueMessage firstMessage = messageQueue.poll(100, TimeUnit.MILLISECONDS);
+                PendingWrite firstMessage = messageQueue.poll(100, TimeUnit.MILLISECONDS);
                 if (firstMessage == null) {
                     continue;
                 }
@@ -130,8 +165,7 @@ public class BatchMessageWriter {
 
                 // Write batch
                 if (!batch.isEmpty()) {
-                    writeBatch(batch);
-                    batch.clear();
+                    writeAndNotify(batch);
                 }
 
             } catch (InterruptedException e) {
@@ -140,6 +174,8 @@ public class BatchMessageWriter {
                 break;
             } catch (Exception e) {
                 logger.error("Error in batch processor", e);
+            } finally {
+                batch.clear();
             }
         }
 
@@ -160,12 +196,51 @@ public class BatchMessageWriter {
         }
     }
 
+    /**
+     * Message id as a UUID. Ids are UUIDs (time-ordered ones from current servers and clients); any other
+     * id maps to its name-based UUID, so a redelivered message still hits the same key.
+     */
+    static UUID toUuid(String messageId) {
+        if (messageId.length() == 36) {
+            try {
+                return UUID.fromString(messageId);
+            } catch (IllegalArgumentException e) {
+                // Not a UUID; fall through
+            }
+        }
+        return UUID.nameUUIDFromBytes(messageId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write a batch and tell each message's callback how it went. A batch that failed with an unexpected
+     * exception counts as not persisted.
+     */
+    private void writeAndNotify(List<PendingWrite> batch) {
+        boolean persisted = false;
+        try {
+            persisted = writeBatch(batch);
+        } finally {
+            Map<WriteCallback, Boolean> callbacks = new IdentityHashMap<>();
+            for (PendingWrite write : batch) {
+                if (write.callback != null) {
+                    write.callback.onWritten(write.token, persisted);
+                    callbacks.put(write.callback, Boolean.TRUE);
+                }
+            }
+            for (WriteCallback callback : callbacks.keySet()) {
+                callback.onBatchDone();
+            }
+        }
+    }
+
     /**
      * Write a batch of messages to the database.
+     *
+     * @return true once the batch is committed, false if it was rolled back
      */
-    private void writeBatch(List<QueueMessage> messages) {
+    private boolean writeBatch(List<PendingWrite> messages) {
         if (messages.isEmpty()) {
-            return;
+            return true;
         }
 
         long startTime = System.currentTimeMillis();
@@ -178,13 +253,24 @@ public class BatchMessageWriter {
 
             Timestamp now = Timestamp.from(Instant.now());
 
-            for (QueueMessage msg : messages) {
-                pstmt.setString(1, msg.getMessageId());
+            for (PendingWrite write : messages) {
+                QueueMessage msg = write.message;
+                if (UUID_MESSAGE_IDS) {
+                    pstmt.setObject(1, toUuid(msg.getMessageId()));
+                } else {
+                    pstmt.setString(1, msg.getMessageId());
+                }
                 pstmt.setInt(2, msg.getRoomIdAsInt());
                 pstmt.setString(3, msg.getUserId());
                 pstmt.setString(4, msg.getContent());
                 pstmt.setTimestamp(5, Timestamp.from(msg.getTimestamp()));
                 pstmt.setTimestamp(6, now);
+                pstmt.setString(7, msg.getServerId());
+                if (msg.getRoomSeq() > 0) {
+                    pstmt.setLong(8, msg.getRoomSeq());
+                } else {
+                    pstmt.setNull(8, Types.BIGINT);
+                }
                 pstmt.addBatch();
             }
 
@@ -204,6 +290,7 @@ public class BatchMessageWriter {
                 logger.warn("Some messages were skipped (duplicates): {} out of {}",
                            messages.size() - written, messages.size());
             }
+            return true;
 
         } catch (SQLException e) {
             totalErrors.incrementAndGet();
@@ -219,7 +306,8 @@ public class BatchMessageWriter {
                 }
             }
 
-            // Note: Retry logic handled at message level by RetryHandler
+            // Note: Retry logic handled at message level by RetryHandler, or by the callback's owner
+            return false;
 
         } finally {
             // Close resources
@@ -261,7 +349,8 @@ public class BatchMessageWriter {
             totalMessagesWritten.get(),
             totalBatchesWritten.get(),
             totalErrors.get(),
-            messageQueue.size()
+            messageQueue.size(),
+            queueCapacity
         );
     }
 
@@ -293,16 +382,28 @@ public class BatchMessageWriter {
         }
 
         // Flush remaining messages
-        List<QueueMessage> remaining = new ArrayList<>();
+        List<PendingWrite> remaining = new ArrayList<>();
         messageQueue.drainTo(remaining);
         if (!remaining.isEmpty()) {
             logger.info("Flushing {} remaining messages", remaining.size());
-            writeBatch(remaining);
+            writeAndNotify(remaining);
         }
 
         logger.info("BatchMessageWriter shutdown complete. Final stats: {}", getStats());
     }
 
+    private static final class PendingWrite {
+        private final QueueMessage message;
+        private final WriteCallback callback;
+        private final long token;
+
+        PendingWrite(QueueMessage message, WriteCallback callback, long token) {
+            this.message = message;
+            this.callback = callback;
+            this.token = token;
+        }
+    }
+
     /**
      * Writer statistics data class.
      */
@@ -311,12 +412,15 @@ public class BatchMessageWriter {
         public final long totalBatchesWritten;
         public final long totalErrors;
         public final int queueSize;
+        public final int queueCapacity;
 
-        public WriterStats(long messagesWritten, long batchesWritten, long errors, int queueSize) {
+        public WriterStats(long messagesWritten, long batchesWritten, long errors, int queueSize,
+                           int queueCapacity) {
             this.totalMessagesWritten = messagesWritten;
             this.totalBatchesWritten = batchesWritten;
             this.totalErrors = errors;
             this.queueSize = queueSize;
+            this.queueCapacity = queueCapacity;
         }
 
         @Override
@@ -2,6 +2,7 @@ package com.cs6650.chat.consumer.health;
 
 import com.cs6650.chat.consumer.broadcast.RoomManager;
 import com.cs6650.chat.consumer.queue.MessageConsumer;
+import com.cs6650.chat.consumer.websocket.SizeAwareDeflateExtension;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -71,6 +72,7 @@ public class HealthCheckServlet extends HttpServlet {
                 healthStatus.addMetric("duplicatesDetected", roomManager.getDuplicatesDetected());
                 healthStatus.addMetric("broadcastsSucceeded", roomManager.getBroadcastsSucceeded());
                 healthStatus.addMetric("broadcastsFailed", roomManager.getBroadcastsFailed());
+                healthStatus.addMetric("deflate", SizeAwareDeflateExtension.getStats());
             } else {
                 healthStatus.addComponent("roomManager",
                     new HealthStatus.ComponentHealth("unhealthy", "RoomManager not initialized"));
@@ -87,6 +89,13 @@ public class HealthCheckServlet extends HttpServlet {
             if (messageConsumer != null) {
                 healthStatus.addComponent("messageConsumer",
                     new HealthStatus.ComponentHealth("healthy", "Consumer threads running"));
+                healthStatus.addMetric("decoder", messageConsumer.getMessageDecoder().getStats());
+                healthStatus.addMetric("reorder", messageConsumer.getReorderBuffer().getStats());
+                healthStatus.addMetric("acks", messageConsumer.getAckStats());
+                healthStatus.addMetric("prefetch", messageConsumer.getPrefetchController().getStats());
+                if (messageConsumer.getProcessingLanes() != null) {
+                    healthStatus.addMetric("lanes", messageConsumer.getProcessingLanes().getStats());
+                }
             } else {
                 healthStatus.addComponent("messageConsumer",
                     new HealthStatus.ComponentHealth("unhealthy", "Consumer not initialized"));
@@ -10,6 +10,7 @@ import com.cs6650.chat.consumer.metrics.MetricsService;
 import com.cs6650.chat.consumer.metrics.MetricsServlet;
 import com.cs6650.chat.consumer.queue.MessageConsumer;
 import com.cs6650.chat.consumer.websocket.BroadcastWebSocketHandler;
+import com.cs6650.chat.consumer.websocket.SizeAwareDeflateExtension;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
@@ -95,6 +96,9 @@ public class HealthServer {
             wsContainer.setIdleTimeout(Duration.ofMinutes(10));
             wsContainer.setMaxTextMessageSize(65536);
 
+            // Compression: permessage-deflate that skips small messages (WS_DEFLATE_*)
+            SizeAwareDeflateExtension.install(servletContext);
+
             // Map WebSocket endpoint: /broadcast/{roomId}
             wsContainer.addMapping("/broadcast/*", (req, resp) -> new BroadcastWebSocketHandler(roomManager));
 
@@ -415,6 +415,47 @@ public class MetricsService {
         return results;
     }
 
+    /**
+     * Core Query: Get a room's messages from one server after a sequence number, in sequence order.
+     * Lets a reconnecting client fetch what it missed from the last roomSeq it saw.
+     * Query pattern: WHERE room_id = ? AND server_id = ? AND room_seq > ? (idx_messages_room_seq)
+     *
+     * @param roomId Room identifier
+     * @param serverId Server that stamped the sequence numbers
+     * @param afterSeq Last sequence number already seen (0 for the start of the stream)
+     * @param limit Maximum number of messages to return
+     * @return Messages with roomSeq greater than afterSeq, oldest first
+     */
+    public List<Map<String, Object>> getRoomMessagesAfterSeq(
+            int roomId, String serverId, long afterSeq, int limit) throws SQLException {
+        String sql = "SELECT message_id, user_id, content, timestamp, room_seq " +
+                     "FROM messages " +
+                     "WHERE room_id = ? AND server_id = ? AND room_seq > ? " +
+                     "ORDER BY room_seq LIMIT ?";
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        try (Connection conn = connectionPool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, roomId);
+            stmt.setString(2, serverId);
+            stmt.setLong(3, afterSeq);
+            stmt.setInt(4, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("messageId", rs.getString("message_id"));
+                    row.put("userId", rs.getString("user_id"));
+                    row.put("content", rs.getString("content"));
+                    row.put("timestamp", rs.getTimestamp("timestamp").toString());
+                    row.put("roomSeq", rs.getLong("room_seq"));
+                    results.add(row);
+                }
+            }
+        }
+        return results;
+    }
+
     /**
      * Refresh all materialized views to get latest stats.
      * Should be called before querying analytics if data is stale.
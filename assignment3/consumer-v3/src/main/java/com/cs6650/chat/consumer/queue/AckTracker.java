@@ -0,0 +1,146 @@
+package com.cs6650.chat.consumer.queue;
+
+import com.cs6650.chat.consumer.database.BatchMessageWriter;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Acknowledges one channel's deliveries only after the batch holding them is committed ({@code ACK_MODE=persist}).
+ * <p>
+ * Deliveries are tracked in delivery-tag order. When a batch finishes, the tracker sends a single
+ * {@code basicAck(tag, multiple=true)} for the longest settled prefix, so one frame acks a whole range.
+ * A delivery whose batch was rolled back is nacked on its own with requeue, and the prefix never reaches past
+ * a delivery that is still waiting for its batch. Called from the consumer thread (track) and the batch writer
+ * thread (callbacks); the channel is safe to use from both.
+ */
+public class AckTracker implements BatchMessageWriter.WriteCallback {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AckTracker.class);
+
+    private final Channel channel;
+    // Delivery tags not yet acked or nacked, oldest first
+    private final ArrayDeque<Long> outstanding = new ArrayDeque<>();
+    // Outcome of tags that finished out of order: true = persisted, false = already nacked
+    private final Map<Long, Boolean> settled = new HashMap<>();
+
+    // Statistics
+    private long ackFrames;
+    private long messagesAcked;
+    private long messagesNacked;
+
+    public AckTracker(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Start tracking a delivery; call before handing the message to the writer.
+     */
+    public synchronized void track(long deliveryTag) {
+        outstanding.addLast(deliveryTag);
+    }
+
+    @Override
+    public synchronized void onWritten(long deliveryTag, boolean persisted) {
+        if (!persisted) {
+            try {
+                channel.basicNack(deliveryTag, false, true);
+                messagesNacked++;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to nack delivery {}: {}", deliveryTag, e.getMessage());
+            }
+        }
+        settled.put(deliveryTag, persisted);
+    }
+
+    @Override
+    public synchronized void onBatchDone() {
+        long ackUpTo = -1;
+        int count = 0;
+        Long head;
+        while ((head = outstanding.peekFirst()) != null && settled.containsKey(head)) {
+            outstanding.pollFirst();
+            if (settled.remove(head)) {
+                ackUpTo = head;
+                count++;
+            }
+        }
+        if (ackUpTo < 0) {
+            return;
+        }
+        try {
+            channel.basicAck(ackUpTo, true);
+            ackFrames++;
+            messagesAcked += count;
+        } catch (IOException | RuntimeException e) {
+            // Channel closed; the broker requeues everything it did not see acked
+            LOGGER.warn("Failed to ack deliveries up to {}: {}", ackUpTo, e.getMessage());
+        }
+    }
+
+    /**
+     * Add this channel's counters to {@code totals}: outstanding, ack frames, messages acked, messages nacked.
+     */
+    synchronized void addTo(long[] totals) {
+        totals[0] += outstanding.size();
+        totals[1] += ackFrames;
+        totals[2] += messagesAcked;
+        totals[3] += messagesNacked;
+    }
+
+    /**
+     * Acknowledgement statistics data class.
+     */
+    public static class AckStats {
+        public final String mode;
+        public final long outstanding;
+        public final long ackFrames;
+        public final long messagesAcked;
+        public final long messagesNacked;
+
+        public AckStats(String mode, long outstanding, long ackFrames, long messagesAcked, long messagesNacked) {
+            this.mode = mode;
+            this.outstanding = outstanding;
+            this.ackFrames = ackFrames;
+            this.messagesAcked = messagesAcked;
+            this.messagesNacked = messagesNacked;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public long getOutstanding() {
+            return outstanding;
+        }
+
+        public long getAckFrames() {
+            return ackFrames;
+        }
+
+        public long getMessagesAcked() {
+            return messagesAcked;
+        }
+
+        public long getMessagesNacked() {
+            return messagesNacked;
+        }
+
+        /**
+         * Average number of deliveries covered by one ack frame.
+         */
+        public double getMessagesPerAck() {
+            return ackFrames > 0 ? (double) messagesAcked / ackFrames : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("AckStats[mode=%s, outstanding=%d, ackFrames=%d, acked=%d, nacked=%d, perAck=%.1f]",
+                    mode, outstanding, ackFrames, messagesAcked, messagesNacked, getMessagesPerAck());
+        }
+    }
+}
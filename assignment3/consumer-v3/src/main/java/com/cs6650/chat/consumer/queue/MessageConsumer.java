@@ -1,10 +1,9 @@
 package com.cs6650.chat.consumer.queue;
 
 import com.cs6650.chat.consumer.broadcast.RoomManager;
+import com.cs6650.chat.consumer.broadcast.SequenceReorderBuffer;
 import com.cs6650.chat.consumer.database.BatchMessageWriter;
 import com.cs6650.chat.consumer.model.QueueMessage;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.rabbitmq.client.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,26 +27,52 @@ public class MessageConsumer {
     private static final int RABBITMQ_PORT = Integer.parseInt(System.getenv().getOrDefault("RABBITMQ_PORT", "5672"));
     private static final String RABBITMQ_USERNAME = System.getenv().getOrDefault("RABBITMQ_USERNAME", "guest");
     private static final String RABBITMQ_PASSWORD = System.getenv().getOrDefault("RABBITMQ_PASSWORD", "guest");
-    // One thread per room to guarantee message ordering within each room
-    private static final int CONSUMER_THREADS = Integer.parseInt(System.getenv().getOrDefault("CONSUMER_THREADS", "20"));
+    // Partition queues per room (room.N.k when > 1); must match the server's ROOM_PARTITIONS
+    private static final int ROOM_PARTITIONS = Math.max(1,
+            Integer.parseInt(System.getenv().getOrDefault("ROOM_PARTITIONS", "1")));
+    // One thread per room partition to guarantee message ordering within each partition
+    private static final int CONSUMER_THREADS = Integer.parseInt(
+            System.getenv().getOrDefault("CONSUMER_THREADS", String.valueOf(20 * ROOM_PARTITIONS)));
+    // Starting prefetch per channel; PrefetchController adjusts it at runtime unless PREFETCH_ADAPTIVE=false
     private static final int PREFETCH_COUNT = Integer.parseInt(System.getenv().getOrDefault("PREFETCH_COUNT", "10"));
+    // How long a message may wait for a missing predecessor (by roomSeq) before broadcast; 0 disables reordering
+    private static final long REORDER_WINDOW_MS = Long.parseLong(
+            System.getenv().getOrDefault("REORDER_WINDOW_MS", "50"));
+    private static final int REORDER_MAX_HELD = Integer.parseInt(
+            System.getenv().getOrDefault("REORDER_MAX_HELD", "1000"));
+    // ACK_MODE: immediate acks each delivery once it is queued for the database; persist acks after the
+    // batch holding it is committed, with one multiple-ack per batch and channel (at-least-once storage)
+    private static final boolean ACK_AFTER_PERSIST = "persist".equalsIgnoreCase(
+            System.getenv().getOrDefault("ACK_MODE", "immediate"));
+    // Single-threaded lanes that process deliveries off the RabbitMQ threads, one room partition per lane;
+    // 0 processes each delivery on the thread that received it
+    private static final int PROCESSING_LANES = Integer.parseInt(
+            System.getenv().getOrDefault("PROCESSING_LANES", String.valueOf(CONSUMER_THREADS)));
+    private static final int LANE_QUEUE_CAPACITY = Integer.parseInt(
+            System.getenv().getOrDefault("LANE_QUEUE_CAPACITY", "1000"));
 
     private final Connection connection;
     private final RoomManager roomManager;
     private final BatchMessageWriter batchWriter;
-    private final ObjectMapper objectMapper;
+    private final MessageDecoder messageDecoder;
     private final ExecutorService executorService;
     private final List<Channel> channels;
     private final RetryHandler retryHandler;
+    private final SequenceReorderBuffer reorderBuffer;
+    private final List<AckTracker> ackTrackers = new ArrayList<>();
+    private final PrefetchController prefetchController;
+    private final ProcessingLanes processingLanes;
 
     public MessageConsumer(RoomManager roomManager, BatchMessageWriter batchWriter) throws IOException, TimeoutException {
         this.roomManager = roomManager;
         this.batchWriter = batchWriter;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.messageDecoder = new MessageDecoder();
         this.channels = new ArrayList<>();
         this.executorService = Executors.newFixedThreadPool(CONSUMER_THREADS);
         this.retryHandler = new RetryHandler();
+        this.reorderBuffer = new SequenceReorderBuffer(REORDER_WINDOW_MS, REORDER_MAX_HELD, roomManager::broadcastToRoom);
+        this.prefetchController = new PrefetchController(PREFETCH_COUNT, batchWriter);
+        this.processingLanes = PROCESSING_LANES > 0 ? new ProcessingLanes(PROCESSING_LANES, LANE_QUEUE_CAPACITY) : null;
 
         // Create connection
         ConnectionFactory factory = new ConnectionFactory();
@@ -68,68 +93,75 @@ public class MessageConsumer {
 
     /**
      * Start consuming messages from all room queues.
-     * One thread per room to guarantee message ordering.
+     * One channel per room partition, so partitions of a hot room are processed in parallel
+     * while each partition stays in order.
      */
     public void startConsuming() throws IOException {
-        LOGGER.info("Starting {} consumer threads (one per room)", CONSUMER_THREADS);
+        LOGGER.info("Starting {} consumer threads ({} partition(s) per room, ackMode={})",
+                CONSUMER_THREADS, ROOM_PARTITIONS, ACK_AFTER_PERSIST ? "persist" : "immediate");
 
-        // Create one thread per room (20 rooms = 20 threads)
+        // Create one channel per room partition (20 rooms x ROOM_PARTITIONS)
         for (int roomId = 1; roomId <= 20; roomId++) {
-            Channel channel = connection.createChannel();
-            channel.basicQos(PREFETCH_COUNT);
-            channels.add(channel);
+            for (int partition = 0; partition < ROOM_PARTITIONS; partition++) {
+                Channel channel = connection.createChannel();
+                PrefetchController.ChannelWindow window = prefetchController.register(channel);
+                channels.add(channel);
 
-            // Each thread handles exactly one room
-            List<String> assignedRooms = new ArrayList<>();
-            assignedRooms.add(String.valueOf(roomId));
+                // Each thread handles exactly one room partition
+                List<String> assignedRooms = new ArrayList<>();
+                assignedRooms.add(String.valueOf(roomId));
 
-            // Start consumer for this single room
-            startConsumerForRooms(channel, assignedRooms, roomId - 1);
+                // Start consumer for this single room partition
+                startConsumerForRooms(channel, window, assignedRooms, partition,
+                        (roomId - 1) * ROOM_PARTITIONS + partition);
+            }
         }
+        prefetchController.start();
 
-        LOGGER.info("All {} consumer threads started (one per room for ordering guarantee)", CONSUMER_THREADS);
+        LOGGER.info("All {} room partition consumers started (one per partition for ordering guarantee)",
+                20 * ROOM_PARTITIONS);
     }
 
     /**
-     * Start a consumer for specific rooms on a channel.
+     * Start a consumer for one partition of specific rooms on a channel.
      */
-    private void startConsumerForRooms(Channel channel, List<String> rooms, int threadId) throws IOException {
+    private void startConsumerForRooms(Channel channel, PrefetchController.ChannelWindow window, List<String> rooms,
+                                       int partition, int threadId) throws IOException {
+        AckTracker ackTracker = null;
+        if (ACK_AFTER_PERSIST) {
+            ackTracker = new AckTracker(channel);
+            synchronized (ackTrackers) {
+                ackTrackers.add(ackTracker);
+            }
+        }
+        final AckTracker tracker = ackTracker;
+
         for (String roomId : rooms) {
-            String queueName = "room." + roomId;
+            String queueName = ROOM_PARTITIONS == 1 ? "room." + roomId : "room." + roomId + "." + partition;
 
             DefaultConsumer consumer = new DefaultConsumer(channel) {
                 @Override
                 public void handleDelivery(String consumerTag, Envelope envelope,
                                            AMQP.BasicProperties properties, byte[] body) throws IOException {
-                    String messageId = "unknown";
+                    long receivedNanos = System.nanoTime();
+                    if (processingLanes == null) {
+                        processDelivery(channel, window, tracker, envelope, properties, body, roomId, threadId,
+                                receivedNanos);
+                        return;
+                    }
                     try {
-                        // Parse message
-                        String messageJson = new String(body, "UTF-8");
-                        QueueMessage message = objectMapper.readValue(messageJson, QueueMessage.class);
-                        messageId = message.getMessageId();
-
-                        LOGGER.debug("Thread {} consumed message {} from room {}",
-                                threadId, messageId, roomId);
-
-                        // STEP 1: Write to database (async batch)
-                        boolean addedToDb = batchWriter.addMessage(message);
-                        if (!addedToDb) {
-                            LOGGER.warn("Failed to add message {} to database write queue", messageId);
-                        }
-
-                        // STEP 2: Broadcast to room (real-time delivery)
-                        roomManager.broadcastToRoom(message);
-
-                        // Acknowledge message after successful processing
-                        channel.basicAck(envelope.getDeliveryTag(), false);
-
-                        LOGGER.debug("Message {} processed successfully (DB queued: {}, broadcast: success)",
-                                messageId, addedToDb);
-
-                    } catch (Exception e) {
-                        LOGGER.error("Error processing message {} from room {}: {}", messageId, roomId, e.getMessage(), e);
-                        // Use retry handler for failed delivery
-                        retryHandler.handleFailedDelivery(channel, envelope.getDeliveryTag(), properties, body, roomId, messageId);
+                        processingLanes.submit(processingLanes.laneFor(threadId), () -> {
+                            try {
+                                processDelivery(channel, window, tracker, envelope, properties, body, roomId,
+                                        threadId, receivedNanos);
+                            } catch (IOException e) {
+                                LOGGER.error("Failed to settle delivery {} from room {}: {}",
+                                        envelope.getDeliveryTag(), roomId, e.getMessage());
+                            }
+                        });
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        channel.basicNack(envelope.getDeliveryTag(), false, true);
                     }
                 }
             };
@@ -140,12 +172,92 @@ public class MessageConsumer {
         }
     }
 
+    /**
+     * Decode, store and broadcast one delivery, then settle it. Runs on the delivery's lane, or on the
+     * RabbitMQ thread when lanes are disabled; the time since {@code receivedNanos} feeds the prefetch window.
+     */
+    private void processDelivery(Channel channel, PrefetchController.ChannelWindow window, AckTracker tracker,
+                                 Envelope envelope, AMQP.BasicProperties properties, byte[] body, String roomId,
+                                 int threadId, long receivedNanos) throws IOException {
+        String messageId = "unknown";
+        try {
+            // Parse message
+            QueueMessage message = messageDecoder.decode(properties, body);
+            messageId = message.getMessageId();
+
+            LOGGER.debug("Thread {} consumed message {} from room {}",
+                    threadId, messageId, roomId);
+
+            if (tracker != null) {
+                handlePersistFirst(message, tracker, envelope.getDeliveryTag());
+                return;
+            }
+
+            // STEP 1: Write to database (async batch)
+            boolean addedToDb = batchWriter.addMessage(message);
+            if (!addedToDb) {
+                LOGGER.warn("Failed to add message {} to database write queue", messageId);
+            }
+
+            // STEP 2: Broadcast to room (real-time delivery), in roomSeq order
+            reorderBuffer.submit(message);
+
+            // Acknowledge message after successful processing
+            channel.basicAck(envelope.getDeliveryTag(), false);
+
+            LOGGER.debug("Message {} processed successfully (DB queued: {}, broadcast: success)",
+                    messageId, addedToDb);
+
+        } catch (Exception e) {
+            LOGGER.error("Error processing message {} from room {}: {}", messageId, roomId, e.getMessage(), e);
+            // Use retry handler for failed delivery
+            retryHandler.handleFailedDelivery(channel, envelope.getDeliveryTag(), properties, body, roomId, messageId);
+        } finally {
+            window.record(System.nanoTime() - receivedNanos);
+        }
+    }
+
+    /**
+     * ACK_MODE=persist: broadcast now, ack once the database batch holding the message is committed.
+     * Nothing may throw after the delivery is tracked, or it could be settled twice.
+     */
+    private void handlePersistFirst(QueueMessage message, AckTracker tracker, long deliveryTag) {
+        // Broadcast to room (real-time delivery), in roomSeq order; a redelivery is dropped by RoomManager
+        reorderBuffer.submit(message);
+
+        tracker.track(deliveryTag);
+        if (!batchWriter.addMessage(message, tracker, deliveryTag)) {
+            LOGGER.warn("Failed to add message {} to database write queue, requeuing", message.getMessageId());
+            tracker.onWritten(deliveryTag, false);
+            tracker.onBatchDone();
+        }
+    }
+
+    /**
+     * Get acknowledgement statistics (all zero in immediate mode).
+     */
+    public AckTracker.AckStats getAckStats() {
+        long[] totals = new long[4];
+        synchronized (ackTrackers) {
+            for (AckTracker tracker : ackTrackers) {
+                tracker.addTo(totals);
+            }
+        }
+        return new AckTracker.AckStats(ACK_AFTER_PERSIST ? "persist" : "immediate",
+                totals[0], totals[1], totals[2], totals[3]);
+    }
+
     /**
      * Shutdown the consumer gracefully.
      */
     public void shutdown() {
         LOGGER.info("Shutting down MessageConsumer");
 
+        // Finish queued deliveries while their channels are still open to settle them
+        if (processingLanes != null) {
+            processingLanes.shutdown(10000);
+        }
+
         // Close all channels
         for (Channel channel : channels) {
             try {
@@ -166,6 +278,9 @@ public class MessageConsumer {
             LOGGER.warn("Error closing connection", e);
         }
 
+        prefetchController.shutdown();
+        reorderBuffer.shutdown();
+
         // Shutdown executor
         executorService.shutdown();
         try {
@@ -180,10 +295,29 @@ public class MessageConsumer {
         LOGGER.info("MessageConsumer shutdown complete");
     }
 
+    /**
+     * Processing lanes, or null when deliveries are processed on the RabbitMQ threads.
+     */
+    public ProcessingLanes getProcessingLanes() {
+        return processingLanes;
+    }
+
+    public PrefetchController getPrefetchController() {
+        return prefetchController;
+    }
+
     public RoomManager getRoomManager() {
         return roomManager;
     }
 
+    public SequenceReorderBuffer getReorderBuffer() {
+        return reorderBuffer;
+    }
+
+    public MessageDecoder getMessageDecoder() {
+        return messageDecoder;
+    }
+
     public BatchMessageWriter getBatchWriter() {
         return batchWriter;
     }
@@ -0,0 +1,306 @@
+package com.cs6650.chat.consumer.queue;
+
+import com.cs6650.chat.consumer.database.BatchMessageWriter;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adjusts each consumer channel's prefetch ({@code basicQos}) at runtime, the way TCP adjusts its congestion window.
+ * <p>
+ * Every {@code PREFETCH_INTERVAL_MS} each channel's average handling time per delivery (from receipt, so time
+ * queued in a processing lane counts) and the batch writer's queue fill are checked. Above
+ * {@code PREFETCH_TARGET_LATENCY_MS}, or with the write queue more than {@code PREFETCH_QUEUE_HIGH_WATER} full,
+ * the window is halved (multiplicative decrease) and the halved value becomes the slow-start threshold.
+ * Otherwise a channel that received deliveries grows: doubling below the threshold (slow start), then by
+ * {@code PREFETCH_STEP} (additive increase). Idle channels keep their window.
+ * The window stays within {@code PREFETCH_MIN}..{@code PREFETCH_MAX} and starts at {@code PREFETCH_COUNT}.
+ * <p>
+ * The limit is set with {@code basicQos(prefetch, global=true)}. RabbitMQ applies the per-consumer form only to
+ * consumers started after the call, so it could not change the running consumer; the channel-wide form applies at
+ * once, and each channel carries exactly one consumer, so it limits the same deliveries.
+ * <p>
+ * A summary of each adjustment round is kept in a ring buffer of {@code PREFETCH_HISTORY} samples.
+ * With {@code PREFETCH_ADAPTIVE=false} every channel keeps {@code PREFETCH_COUNT}.
+ */
+public class PrefetchController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchController.class);
+
+    private static final boolean ADAPTIVE = Boolean.parseBoolean(
+            System.getenv().getOrDefault("PREFETCH_ADAPTIVE", "true"));
+    private static final int MIN_PREFETCH = Math.max(1, Integer.parseInt(
+            System.getenv().getOrDefault("PREFETCH_MIN", "5")));
+    private static final int MAX_PREFETCH = Math.max(MIN_PREFETCH, Integer.parseInt(
+            System.getenv().getOrDefault("PREFETCH_MAX", "500")));
+    private static final int STEP = Math.max(1, Integer.parseInt(
+            System.getenv().getOrDefault("PREFETCH_STEP", "10")));
+    private static final long INTERVAL_MS = Math.max(100, Long.parseLong(
+            System.getenv().getOrDefault("PREFETCH_INTERVAL_MS", "1000")));
+    private static final double TARGET_LATENCY_MS = Double.parseDouble(
+            System.getenv().getOrDefault("PREFETCH_TARGET_LATENCY_MS", "20"));
+    private static final double QUEUE_HIGH_WATER = Double.parseDouble(
+            System.getenv().getOrDefault("PREFETCH_QUEUE_HIGH_WATER", "0.5"));
+    private static final int HISTORY_SIZE = Math.max(1, Integer.parseInt(
+            System.getenv().getOrDefault("PREFETCH_HISTORY", "60")));
+
+    private final int initialPrefetch;
+    private final BatchMessageWriter batchWriter;
+    private final List<ChannelWindow> windows = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<Sample> history = new ArrayDeque<>(HISTORY_SIZE);
+    private final ScheduledExecutorService scheduler;
+
+    // Statistics
+    private final AtomicLong increases = new AtomicLong(0);
+    private final AtomicLong decreases = new AtomicLong(0);
+    private final AtomicLong qosErrors = new AtomicLong(0);
+
+    public PrefetchController(int initialPrefetch, BatchMessageWriter batchWriter) {
+        this.initialPrefetch = ADAPTIVE
+                ? Math.min(MAX_PREFETCH, Math.max(MIN_PREFETCH, initialPrefetch))
+                : Math.max(1, initialPrefetch);
+        this.batchWriter = batchWriter;
+        if (ADAPTIVE) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "Prefetch-Controller");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.scheduler = null;
+        }
+        LOGGER.info("PrefetchController initialized: adaptive={}, initial={}, min={}, max={}, step={}, "
+                        + "interval={}ms, targetLatency={}ms, queueHighWater={}",
+                ADAPTIVE, this.initialPrefetch, MIN_PREFETCH, MAX_PREFETCH, STEP,
+                INTERVAL_MS, TARGET_LATENCY_MS, QUEUE_HIGH_WATER);
+    }
+
+    /**
+     * Apply the starting prefetch to a consumer channel and put it under control.
+     */
+    public ChannelWindow register(Channel channel) throws IOException {
+        // Channel-wide, like every later adjustment; a per-consumer limit here would cap them
+        channel.basicQos(initialPrefetch, true);
+        ChannelWindow window = new ChannelWindow(channel, initialPrefetch);
+        windows.add(window);
+        return window;
+    }
+
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::adjust, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void adjust() {
+        try {
+            BatchMessageWriter.WriterStats writerStats = batchWriter.getStats();
+            double queueFill = writerStats.queueCapacity > 0
+                    ? (double) writerStats.queueSize / writerStats.queueCapacity : 0.0;
+            boolean writerCongested = queueFill > QUEUE_HIGH_WATER;
+
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            long total = 0;
+            long deliveries = 0;
+            long handlingNanos = 0;
+            int shrunk = 0;
+            int grown = 0;
+            for (ChannelWindow window : windows) {
+                long count = window.deliveries.getAndSet(0);
+                long nanos = window.handlingNanos.getAndSet(0);
+                deliveries += count;
+                handlingNanos += nanos;
+                double latencyMs = count > 0 ? nanos / 1_000_000.0 / count : 0.0;
+
+                int next = window.prefetch;
+                if (writerCongested || latencyMs > TARGET_LATENCY_MS) {
+                    window.ssthresh = Math.max(MIN_PREFETCH, window.prefetch / 2);
+                    next = window.ssthresh;
+                } else if (count > 0) {
+                    next = window.prefetch < window.ssthresh ? window.prefetch * 2 : window.prefetch + STEP;
+                    next = Math.min(MAX_PREFETCH, next);
+                }
+                if (next != window.prefetch && window.apply(next)) {
+                    if (next < window.prefetch) {
+                        shrunk++;
+                    } else {
+                        grown++;
+                    }
+                    window.prefetch = next;
+                }
+                min = Math.min(min, window.prefetch);
+                max = Math.max(max, window.prefetch);
+                total += window.prefetch;
+            }
+            if (windows.isEmpty()) {
+                return;
+            }
+            decreases.addAndGet(shrunk);
+            increases.addAndGet(grown);
+            double avgLatencyMs = deliveries > 0 ? handlingNanos / 1_000_000.0 / deliveries : 0.0;
+            Sample sample = new Sample(System.currentTimeMillis(), min, max, (double) total / windows.size(),
+                    deliveries, avgLatencyMs, queueFill, grown, shrunk);
+            synchronized (history) {
+                if (history.size() == HISTORY_SIZE) {
+                    history.pollFirst();
+                }
+                history.addLast(sample);
+            }
+            if (shrunk > 0) {
+                LOGGER.debug("Prefetch decreased on {} channel(s): {}", shrunk, sample);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error adjusting prefetch", e);
+        }
+    }
+
+    /**
+     * Get prefetch statistics, including the recent adjustment history (oldest first).
+     */
+    public PrefetchStats getStats() {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        long total = 0;
+        for (ChannelWindow window : windows) {
+            int prefetch = window.prefetch;
+            min = Math.min(min, prefetch);
+            max = Math.max(max, prefetch);
+            total += prefetch;
+        }
+        List<Sample> samples;
+        synchronized (history) {
+            samples = new ArrayList<>(history);
+        }
+        return new PrefetchStats(ADAPTIVE, MIN_PREFETCH, MAX_PREFETCH, windows.size(),
+                windows.isEmpty() ? 0 : min, max, windows.isEmpty() ? 0.0 : (double) total / windows.size(),
+                increases.get(), decreases.get(), qosErrors.get(), samples);
+    }
+
+    /**
+     * Prefetch window of one consumer channel. The consumer records how long each delivery took to handle.
+     */
+    public final class ChannelWindow {
+        private final Channel channel;
+        private final AtomicLong deliveries = new AtomicLong(0);
+        private final AtomicLong handlingNanos = new AtomicLong(0);
+        private volatile int prefetch;
+        private int ssthresh = MAX_PREFETCH;
+
+        private ChannelWindow(Channel channel, int prefetch) {
+            this.channel = channel;
+            this.prefetch = prefetch;
+        }
+
+        public void record(long nanos) {
+            deliveries.incrementAndGet();
+            handlingNanos.addAndGet(nanos);
+        }
+
+        private boolean apply(int next) {
+            if (!channel.isOpen()) {
+                return false;
+            }
+            try {
+                channel.basicQos(next, true);
+                return true;
+            } catch (Exception e) {
+                qosErrors.incrementAndGet();
+                LOGGER.warn("Failed to set prefetch {} on channel {}: {}", next, channel.getChannelNumber(),
+                        e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * One adjustment round, across all channels.
+     */
+    public static class Sample {
+        public final long timestamp;
+        public final int minPrefetch;
+        public final int maxPrefetch;
+        public final double avgPrefetch;
+        public final long deliveries;
+        public final double avgLatencyMs;
+        public final double writerQueueFill;
+        public final int increased;
+        public final int decreased;
+
+        public Sample(long timestamp, int minPrefetch, int maxPrefetch, double avgPrefetch, long deliveries,
+                      double avgLatencyMs, double writerQueueFill, int increased, int decreased) {
+            this.timestamp = timestamp;
+            this.minPrefetch = minPrefetch;
+            this.maxPrefetch = maxPrefetch;
+            this.avgPrefetch = avgPrefetch;
+            this.deliveries = deliveries;
+            this.avgLatencyMs = avgLatencyMs;
+            this.writerQueueFill = writerQueueFill;
+            this.increased = increased;
+            this.decreased = decreased;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Sample[prefetch=%d..%d (avg %.1f), deliveries=%d, latency=%.2fms, "
+                            + "writerQueue=%.0f%%, up=%d, down=%d]",
+                    minPrefetch, maxPrefetch, avgPrefetch, deliveries, avgLatencyMs, writerQueueFill * 100,
+                    increased, decreased);
+        }
+    }
+
+    /**
+     * Prefetch statistics data class.
+     */
+    public static class PrefetchStats {
+        public final boolean adaptive;
+        public final int lowerBound;
+        public final int upperBound;
+        public final int channels;
+        public final int minPrefetch;
+        public final int maxPrefetch;
+        public final double avgPrefetch;
+        public final long increases;
+        public final long decreases;
+        public final long qosErrors;
+        public final List<Sample> history;
+
+        public PrefetchStats(boolean adaptive, int lowerBound, int upperBound, int channels, int minPrefetch,
+                             int maxPrefetch, double avgPrefetch, long increases, long decreases, long qosErrors,
+                             List<Sample> history) {
+            this.adaptive = adaptive;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.channels = channels;
+            this.minPrefetch = minPrefetch;
+            this.maxPrefetch = maxPrefetch;
+            this.avgPrefetch = avgPrefetch;
+            this.increases = increases;
+            this.decreases = decreases;
+            this.qosErrors = qosErrors;
+            this.history = history;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PrefetchStats[adaptive=%b, channels=%d, prefetch=%d..%d (avg %.1f), "
+                            + "increases=%d, decreases=%d, qosErrors=%d]",
+                    adaptive, channels, minPrefetch, maxPrefetch, avgPrefetch, increases, decreases, qosErrors);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.cs6650.chat.consumer.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed set of single-threaded lanes that process deliveries off the RabbitMQ consumer threads.
+ * <p>
+ * Each room partition is pinned to one lane, so its deliveries are still processed one at a time and in order,
+ * while a room that is slow to decode, enqueue or broadcast only holds up the rooms sharing its lane.
+ * A lane's queue is bounded; when it is full the delivery thread waits, which together with the channel
+ * prefetch pushes back on the broker. Queue depth, time spent waiting and service time are tracked per lane.
+ */
+public class ProcessingLanes {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessingLanes.class);
+
+    private final Lane[] lanes;
+
+    public ProcessingLanes(int laneCount, int queueCapacity) {
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, Math.max(1, queueCapacity));
+            lanes[i].thread.start();
+        }
+        LOGGER.info("ProcessingLanes initialized: lanes={}, queueCapacity={}", lanes.length, queueCapacity);
+    }
+
+    /**
+     * Lane index for a room partition key; the same key always maps to the same lane.
+     */
+    public int laneFor(int key) {
+        return Math.floorMod(key, lanes.length);
+    }
+
+    /**
+     * Queue a task on a lane, waiting while the lane is full.
+     */
+    public void submit(int lane, Runnable task) throws InterruptedException {
+        lanes[lane].queue.put(new Task(task, System.nanoTime()));
+    }
+
+    /**
+     * Stop accepting work and let each lane finish what it has queued, waiting up to {@code timeoutMs} in total.
+     */
+    public void shutdown(long timeoutMs) {
+        for (Lane lane : lanes) {
+            lane.running = false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (lane.thread.isAlive()) {
+                LOGGER.warn("Lane {} did not drain in time, {} task(s) dropped", lane.index, lane.queue.size());
+                lane.thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Get per-lane statistics.
+     */
+    public LaneStats getStats() {
+        List<LaneStats.Lane> perLane = new ArrayList<>(lanes.length);
+        int depth = 0;
+        int maxDepth = 0;
+        long processed = 0;
+        long serviceNanos = 0;
+        for (Lane lane : lanes) {
+            int queued = lane.queue.size();
+            long count = lane.processed.get();
+            depth += queued;
+            maxDepth = Math.max(maxDepth, queued);
+            processed += count;
+            serviceNanos += lane.serviceNanos.get();
+            perLane.add(new LaneStats.Lane(lane.index, queued, count, lane.waitNanos.get(),
+                    lane.serviceNanos.get(), lane.maxServiceNanos.get(), lane.failures.get()));
+        }
+        return new LaneStats(lanes.length, depth, maxDepth, processed,
+                processed > 0 ? serviceNanos / 1000.0 / processed : 0.0, perLane);
+    }
+
+    private static final class Task {
+        private final Runnable runnable;
+        private final long queuedNanos;
+
+        Task(Runnable runnable, long queuedNanos) {
+            this.runnable = runnable;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+
+    private static final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<Task> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        // Statistics
+        private final AtomicLong processed = new AtomicLong(0);
+        private final AtomicLong waitNanos = new AtomicLong(0);
+        private final AtomicLong serviceNanos = new AtomicLong(0);
+        private final AtomicLong maxServiceNanos = new AtomicLong(0);
+        private final AtomicLong failures = new AtomicLong(0);
+
+        Lane(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "Processing-Lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Task task;
+                try {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (task == null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                waitNanos.addAndGet(start - task.queuedNanos);
+                try {
+                    task.runnable.run();
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    LOGGER.error("Unhandled error in processing lane {}", index, e);
+                }
+                long service = System.nanoTime() - start;
+                processed.incrementAndGet();
+                serviceNanos.addAndGet(service);
+                maxServiceNanos.accumulateAndGet(service, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Processing lane statistics data class.
+     */
+    public static class LaneStats {
+        public final int lanes;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long processed;
+        public final double avgServiceMicros;
+        public final List<Lane> perLane;
+
+        public LaneStats(int lanes, int queueDepth, int maxQueueDepth, long processed, double avgServiceMicros,
+                         List<Lane> perLane) {
+            this.lanes = lanes;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.processed = processed;
+            this.avgServiceMicros = avgServiceMicros;
+            this.perLane = perLane;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LaneStats[lanes=%d, queueDepth=%d, maxQueueDepth=%d, processed=%d, "
+                            + "avgServiceUs=%.1f]",
+                    lanes, queueDepth, maxQueueDepth, processed, avgServiceMicros);
+        }
+
+        /**
+         * Statistics of one lane.
+         */
+        public static class Lane {
+            public final int lane;
+            public final int queueDepth;
+            public final long processed;
+            public final long waitNanos;
+            public final long serviceNanos;
+            public final long maxServiceNanos;
+            public final long failures;
+
+            public Lane(int lane, int queueDepth, long processed, long waitNanos, long serviceNanos,
+                        long maxServiceNanos, long failures) {
+                this.lane = lane;
+                this.queueDepth = queueDepth;
+                this.processed = processed;
+                this.waitNanos = waitNanos;
+                this.serviceNanos = serviceNanos;
+                this.maxServiceNanos = maxServiceNanos;
+                this.failures = failures;
+            }
+
+            /**
+             * Average time a task waited in the lane queue, in microseconds.
+             */
+            public double getAvgWaitMicros() {
+                return processed > 0 ? waitNanos / 1000.0 / processed : 0.0;
+            }
+
+            /**
+             * Average time a task took to run, in microseconds.
+             */
+            public double getAvgServiceMicros() {
+                return processed > 0 ? serviceNanos / 1000.0 / processed : 0.0;
+            }
+
+            public double getMaxServiceMicros() {
+                return maxServiceNanos / 1000.0;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("Lane[%d: depth=%d, processed=%d, avgWaitUs=%.1f, avgServiceUs=%.1f, "
+                                + "maxServiceUs=%.1f, failures=%d]",
+                        lane, queueDepth, processed, getAvgWaitMicros(), getAvgServiceMicros(),
+                        getMaxServiceMicros(), failures);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.cs6650.chat.consumer.broadcast;
+
+import com.cs6650.chat.consumer.broadcast.SequenceReorderBuffer.ReorderStats;
+import com.cs6650.chat.consumer.model.QueueMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SequenceReorderBufferTest {
+
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+    private SequenceReorderBuffer buffer;
+
+    @AfterEach
+    public void shutdown() {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    public void releasesHeldMessagesOnceTheGapFills() {
+        buffer = new SequenceReorderBuffer(10_000, 100, this::deliver);
+
+        submit("a", 1);
+        submit("a", 3);
+        submit("a", 4);
+        assertEquals(List.of("a1"), delivered);
+
+        submit("a", 2);
+
+        assertEquals(List.of("a1", "a2", "a3", "a4"), delivered);
+        ReorderStats stats = buffer.getStats();
+        assertEquals(2, stats.inOrder);
+        assertEquals(2, stats.reordered);
+        assertEquals(0, stats.held);
+    }
+
+    @Test
+    public void ordersEachServerStreamSeparately() {
+        buffer = new SequenceReorderBuffer(10_000, 100, this::deliver);
+
+        submit("a", 1);
+        submit("a", 3);
+        submit("b", 1);
+        submit("b", 2);
+
+        assertEquals(List.of("a1", "b1", "b2"), delivered);
+        assertEquals(2, buffer.getStats().streams);
+        assertEquals(1, buffer.getStats().held);
+    }
+
+    @Test
+    public void startsMidStreamAndSkipsGapWhenTooManyAreHeld() {
+        buffer = new SequenceReorderBuffer(10_000, 2, this::deliver);
+
+        submit("a", 10);
+        submit("a", 12);
+        submit("a", 13);
+        assertEquals(List.of("a10"), delivered);
+
+        // A third held message exceeds the cap, so 11 is given up on
+        submit("a", 14);
+        assertEquals(List.of("a10", "a12", "a13", "a14"), delivered);
+
+        // Arriving after the skip, it is passed on rather than held
+        submit("a", 11);
+        assertEquals(List.of("a10", "a12", "a13", "a14", "a11"), delivered);
+        ReorderStats stats = buffer.getStats();
+        assertEquals(1, stats.gapsSkipped);
+        assertEquals(1, stats.late);
+    }
+
+    @Test
+    public void skipsGapAfterTheWindow() throws InterruptedException {
+        buffer = new SequenceReorderBuffer(50, 100, this::deliver);
+
+        submit("a", 1);
+        submit("a", 3);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delivered.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("a1", "a3"), delivered);
+        assertEquals(1, buffer.getStats().gapsSkipped);
+    }
+
+    @Test
+    public void passesThroughUnsequencedMessagesAndZeroWindow() {
+        buffer = new SequenceReorderBuffer(10_000, 100, this::deliver);
+        submit("a", 5);
+        submit("a", 0);
+        submit(null, 9);
+        assertEquals(List.of("a5", "a0", "null9"), delivered);
+        assertEquals(2, buffer.getStats().unsequenced);
+
+        buffer.shutdown();
+        delivered.clear();
+        buffer = new SequenceReorderBuffer(0, 100, this::deliver);
+        submit("a", 3);
+        submit("a", 1);
+        assertEquals(List.of("a3", "a1"), delivered);
+    }
+
+    private void submit(String serverId, long roomSeq) {
+        QueueMessage message = new QueueMessage();
+        message.setRoomId("7");
+        message.setServerId(serverId);
+        message.setRoomSeq(roomSeq);
+        buffer.submit(message);
+    }
+
+    private void deliver(QueueMessage message) {
+        delivered.add(message.getServerId() + message.getRoomSeq());
+    }
+}
@@ -0,0 +1,110 @@
+package com.cs6650.chat.consumer.queue;
+
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AckTrackerTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private boolean failAcks;
+
+    @Test
+    public void acksTheSettledPrefixInOneFrame() {
+        AckTracker tracker = new AckTracker(recordingChannel());
+        for (long tag = 1; tag <= 4; tag++) {
+            tracker.track(tag);
+        }
+
+        tracker.onWritten(1, true);
+        tracker.onWritten(2, true);
+        tracker.onWritten(4, true);
+        tracker.onBatchDone();
+
+        // 3 is still waiting for its batch, so 4 cannot be acked yet
+        assertEquals(List.of("ack 2 multiple"), calls);
+
+        tracker.onWritten(3, true);
+        tracker.onBatchDone();
+
+        assertEquals(List.of("ack 2 multiple", "ack 4 multiple"), calls);
+        assertArrayEquals(new long[] {0, 2, 4, 0}, totals(tracker));
+    }
+
+    @Test
+    public void nacksRolledBackDeliveriesWithRequeue() {
+        AckTracker tracker = new AckTracker(recordingChannel());
+        for (long tag = 1; tag <= 3; tag++) {
+            tracker.track(tag);
+        }
+
+        tracker.onWritten(1, true);
+        tracker.onWritten(2, false);
+        tracker.onWritten(3, true);
+        tracker.onBatchDone();
+
+        assertEquals(List.of("nack 2 requeue", "ack 3 multiple"), calls);
+        assertArrayEquals(new long[] {0, 1, 2, 1}, totals(tracker));
+    }
+
+    @Test
+    public void sendsNothingWhileTheOldestDeliveryIsPending() {
+        AckTracker tracker = new AckTracker(recordingChannel());
+        tracker.track(1);
+        tracker.track(2);
+
+        tracker.onWritten(2, true);
+        tracker.onBatchDone();
+
+        assertTrue(calls.isEmpty());
+        assertArrayEquals(new long[] {2, 0, 0, 0}, totals(tracker));
+    }
+
+    @Test
+    public void failedAckIsNotCounted() {
+        failAcks = true;
+        AckTracker tracker = new AckTracker(recordingChannel());
+        tracker.track(1);
+
+        tracker.onWritten(1, true);
+        tracker.onBatchDone();
+
+        assertArrayEquals(new long[] {0, 0, 0, 0}, totals(tracker));
+    }
+
+    private static long[] totals(AckTracker tracker) {
+        long[] totals = new long[4];
+        tracker.addTo(totals);
+        return totals;
+    }
+
+    /**
+     * Channel that records acks and nacks; no other method is expected to be called.
+     */
+    private Channel recordingChannel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[] {Channel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "basicAck":
+                            if (failAcks) {
+                                throw new IOException("channel closed");
+                            }
+                            calls.add("ack " + args[0] + ((Boolean) args[1] ? " multiple" : ""));
+                            return null;
+                        case "basicNack":
+                            calls.add("nack " + args[0] + ((Boolean) args[2] ? " requeue" : ""));
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
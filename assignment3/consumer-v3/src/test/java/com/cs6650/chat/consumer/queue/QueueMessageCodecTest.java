@@ -0,0 +1,88 @@
+package com.cs6650.chat.consumer.queue;
+
+import com.cs6650.chat.consumer.model.QueueMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class QueueMessageCodecTest {
+
+    // Encoded by the server's QueueMessageCodecTest sample; keep the three in step
+    private static final String SAMPLE_V2_HEX = "0207018fa1b2c3d4e57abc8123456789abcd07b960c1c4bff6de969003010677616c6c79"
+            + "0e686920f09f918b20636166c3a90e6e6f64652d612d3132333435360931302e302e302e37b960";
+
+    @Test
+    public void decodesTheServerSample() {
+        QueueMessage decoded = QueueMessageCodec.decode(bytes(SAMPLE_V2_HEX));
+
+        assertEquals("018fa1b2-c3d4-e57a-bc81-23456789abcd", decoded.getMessageId());
+        assertEquals("7", decoded.getRoomId());
+        assertEquals("12345", decoded.getUserId());
+        assertEquals("wally", decoded.getUsername());
+        // Includes a surrogate pair (U+1F44B) and a two-byte character
+        assertEquals("hi 👋 café", decoded.getMessage());
+        assertEquals(Instant.ofEpochSecond(1_760_000_000L, 123_456_000), decoded.getTimestamp());
+        assertEquals("TEXT", decoded.getMessageType());
+        assertEquals("node-a-123456", decoded.getServerId());
+        assertEquals("10.0.0.7", decoded.getClientIp());
+        assertEquals(12345, decoded.getRoomSeq());
+    }
+
+    @Test
+    public void decodesVersion1WithoutRoomSeq() {
+        byte[] v2 = bytes(SAMPLE_V2_HEX);
+        // Version 1 is version 2 without the trailing roomSeq varint (two bytes for 12345)
+        byte[] v1 = Arrays.copyOf(v2, v2.length - 2);
+        v1[0] = 1;
+
+        QueueMessage decoded = QueueMessageCodec.decode(v1);
+
+        assertEquals("hi 👋 café", decoded.getMessage());
+        assertEquals("10.0.0.7", decoded.getClientIp());
+        assertEquals(0, decoded.getRoomSeq());
+    }
+
+    @Test
+    public void decodesNullFields() {
+        // version 2, no flags, null messageId/roomId/userId, no timestamp or type, four null strings, roomSeq 0
+        byte[] body = {2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+        QueueMessage decoded = QueueMessageCodec.decode(body);
+
+        assertNull(decoded.getMessageId());
+        assertNull(decoded.getRoomId());
+        assertNull(decoded.getUserId());
+        assertNull(decoded.getUsername());
+        assertNull(decoded.getMessage());
+        assertNull(decoded.getTimestamp());
+        assertNull(decoded.getMessageType());
+        assertNull(decoded.getServerId());
+        assertNull(decoded.getClientIp());
+        assertEquals(0, decoded.getRoomSeq());
+    }
+
+    @Test
+    public void rejectsUnknownVersionsAndTruncatedBodies() {
+        byte[] encoded = bytes(SAMPLE_V2_HEX);
+        byte[] future = encoded.clone();
+        future[0] = 3;
+
+        assertThrows(IllegalArgumentException.class, () -> QueueMessageCodec.decode(future));
+        assertThrows(IllegalArgumentException.class,
+                () -> QueueMessageCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> QueueMessageCodec.decode(new byte[0]));
+    }
+
+    private static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
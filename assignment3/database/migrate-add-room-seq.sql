@@ -0,0 +1,17 @@
+-- ============================================
+-- Migration: per-room sequence numbers
+-- Adds server_id / room_seq to an existing messages table (schema.sql already includes them).
+-- Deploy before consumers that write these columns.
+-- ============================================
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS server_id VARCHAR(64);
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS room_seq BIGINT;
+
+COMMENT ON COLUMN messages.room_seq IS 'Per-room sequence number assigned by server_id at publish time';
+
+CREATE INDEX IF NOT EXISTS idx_messages_room_seq
+ON messages(room_id, server_id, room_seq)
+WHERE room_seq IS NOT NULL;
+
+COMMENT ON INDEX idx_messages_room_seq IS
+'Catch-up reads of a room stream from a known sequence number';
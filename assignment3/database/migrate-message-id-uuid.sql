@@ -0,0 +1,27 @@
+-- ============================================
+-- Migration: message_id as UUID
+-- Converts messages.message_id from VARCHAR(64) to a 16-byte UUID (schema.sql already uses UUID).
+-- Ids that are not UUIDs get the same name-based UUID the consumer writes for them
+-- (Java UUID.nameUUIDFromBytes of the UTF-8 id), so redelivered messages still deduplicate.
+-- Rewrites the table and its indexes: run in a maintenance window, with consumers stopped.
+-- Consumers with MESSAGE_ID_STORAGE=uuid (the default) can write to either column type;
+-- set MESSAGE_ID_STORAGE=text only to keep the original id strings in a VARCHAR column.
+-- ============================================
+
+CREATE OR REPLACE FUNCTION pg_temp.message_id_uuid(id TEXT) RETURNS UUID AS $$
+    SELECT CASE
+        WHEN id ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$' THEN id::uuid
+        ELSE (SELECT (substr(h, 1, 12) || '3' || substr(h, 14, 3)
+                      || to_hex((('x' || substr(h, 17, 1))::bit(4)::int & 3) | 8)
+                      || substr(h, 18))::uuid
+              FROM md5(convert_to(id, 'UTF8')) AS h)
+    END
+$$ LANGUAGE SQL IMMUTABLE;
+
+ALTER TABLE messages
+    ALTER COLUMN message_id TYPE UUID USING pg_temp.message_id_uuid(message_id);
+
+COMMENT ON COLUMN messages.message_id IS 'Unique identifier for idempotent writes (UUIDv7 from servers and clients)';
+
+-- Refresh planner statistics for the rewritten table
+ANALYZE messages;
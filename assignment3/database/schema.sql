@@ -17,8 +17,8 @@ DROP MATERIALIZED VIEW IF EXISTS hourly_stats CASCADE;
 -- Main Messages Table
 -- ============================================
 CREATE TABLE messages (
-    -- Primary key: unique message identifier
-    message_id VARCHAR(64) PRIMARY KEY,
+    -- Primary key: unique message identifier, stored as 16 bytes (time-ordered UUIDs append to the index)
+    message_id UUID PRIMARY KEY,
 
     -- Room information
     room_id INT NOT NULL,
@@ -33,13 +33,18 @@ CREATE TABLE messages (
     timestamp TIMESTAMPTZ NOT NULL,
 
     -- Database insert timestamp
-    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    -- Publishing server and its per-room sequence number (NULL for unsequenced messages)
+    server_id VARCHAR(64),
+    room_seq BIGINT
 );
 
 COMMENT ON TABLE messages IS 'Main table storing all chat messages';
-COMMENT ON COLUMN messages.message_id IS 'Unique identifier for idempotent writes';
+COMMENT ON COLUMN messages.message_id IS 'Unique identifier for idempotent writes (UUIDv7 from servers and clients)';
 COMMENT ON COLUMN messages.timestamp IS 'Message timestamp from client';
 COMMENT ON COLUMN messages.created_at IS 'Database insertion timestamp';
+COMMENT ON COLUMN messages.room_seq IS 'Per-room sequence number assigned by server_id at publish time';
 
 -- ============================================
 -- Indexes for Core Queries
@@ -85,6 +90,15 @@ ON messages(user_id, room_id, timestamp DESC);
 COMMENT ON INDEX idx_messages_user_room IS
 'Composite index for user participation queries';
 
+-- Index 5: For Query "Get room messages after sequence N"
+-- Query pattern: WHERE room_id = ? AND server_id = ? AND room_seq > ? ORDER BY room_seq
+CREATE INDEX idx_messages_room_seq
+ON messages(room_id, server_id, room_seq)
+WHERE room_seq IS NOT NULL;
+
+COMMENT ON INDEX idx_messages_room_seq IS
+'Catch-up reads of a room stream from a known sequence number';
+
 -- ============================================
 -- Materialized Views for Analytics
 -- ============================================
@@ -0,0 +1,63 @@
+#!/bin/bash
+# 对比 server-v2 的 EXECUTION_MODE (container / virtual)
+#
+# 用同一个 JMeter 计划 (chat-baseline-test.jmx) 在不同的 WebSocket 并发下各跑一次,
+# 只改写入线程组 (WebSocket Write Operations) 的线程数。
+# 服务器需要事先以对应模式启动, 例如:
+#   EXECUTION_MODE=virtual PUBLISH_CONFIRM_MODE=async  (需要 Java 21+ 运行 Tomcat)
+#   EXECUTION_MODE=container
+#
+# 用法: ./run-execution-mode-comparison.sh <mode> [并发列表]
+#   ./run-execution-mode-comparison.sh container "100 300 600 1000"
+#   ./run-execution-mode-comparison.sh virtual   "100 300 600 1000"
+
+set -e
+
+MODE=${1:?usage: $0 <container|virtual> [concurrency levels]}
+LEVELS=${2:-"100 300 600 1000"}
+SERVER_HOST=${SERVER_HOST:-localhost}
+SERVER_PORT=${SERVER_PORT:-8080}
+
+SCRIPT_DIR=$(cd "$(dirname "$0")" && pwd)
+PLAN="$SCRIPT_DIR/../jmeter/chat-baseline-test.jmx"
+OUTPUT_DIR="$SCRIPT_DIR/../results/execution-mode/$MODE"
+SUMMARY="$OUTPUT_DIR/summary.csv"
+
+mkdir -p "$OUTPUT_DIR"
+echo "mode,java_version,ws_threads,samples,errors_pct,throughput_per_sec,mean_ms,p95_ms,p99_ms" > "$SUMMARY"
+
+# 服务器的 Java 版本 (Java 24 之前虚拟线程在 synchronized 里阻塞会钉住载体线程, 结果与版本有关)
+JAVA_VERSION=$(curl -s "http://$SERVER_HOST:$SERVER_PORT/health" \
+    | python3 -c 'import json,sys; print(json.load(sys.stdin)["execution"].get("javaVersion","unknown"))' \
+    2>/dev/null || echo unknown)
+
+echo "=== EXECUTION_MODE=$MODE, Java $JAVA_VERSION, 并发: $LEVELS, 服务器: $SERVER_HOST:$SERVER_PORT ==="
+
+for N in $LEVELS; do
+    RUN_DIR="$OUTPUT_DIR/threads-$N"
+    rm -rf "$RUN_DIR"
+    mkdir -p "$RUN_DIR"
+
+    # 生成本次的测试计划: 服务器地址 + 写入线程组线程数
+    sed -e "/<stringProp name=\"Argument.name\">SERVER_HOST</{n;s|<stringProp name=\"Argument.value\">[^<]*<|<stringProp name=\"Argument.value\">$SERVER_HOST<|;}" \
+        -e "/<stringProp name=\"Argument.name\">SERVER_PORT</{n;s|<stringProp name=\"Argument.value\">[^<]*<|<stringProp name=\"Argument.value\">$SERVER_PORT<|;}" \
+        -e "/testname=\"WebSocket Write Operations/,/ThreadGroup.num_threads/ s|<intProp name=\"ThreadGroup.num_threads\">[0-9]*<|<intProp name=\"ThreadGroup.num_threads\">$N<|" \
+        "$PLAN" > "$RUN_DIR/plan.jmx"
+
+    echo "--- $N 个 WebSocket 线程, 开始于 $(date) ---"
+    jmeter -n -t "$RUN_DIR/plan.jmx" -l "$RUN_DIR/results.jtl" -e -o "$RUN_DIR/report" > "$RUN_DIR/jmeter.log" 2>&1
+
+    # 从 HTML 报告的 statistics.json 取 "Send Message" 的指标
+    python3 - "$RUN_DIR/report/statistics.json" "$MODE" "$JAVA_VERSION" "$N" >> "$SUMMARY" <<'EOF'
+import json, sys
+stats = json.load(open(sys.argv[1]))["Send Message"]
+print("%s,%s,%s,%d,%.2f,%.1f,%.1f,%.1f,%.1f" % (
+    sys.argv[2], sys.argv[3], sys.argv[4], stats["sampleCount"], stats["errorPct"], stats["throughput"],
+    stats["meanResTime"], stats["pct2ResTime"], stats["pct3ResTime"]))
+EOF
+    tail -1 "$SUMMARY"
+done
+
+echo ""
+echo "=== 完成, 汇总: $SUMMARY ==="
+column -s, -t < "$SUMMARY"